@@ -0,0 +1,48 @@
+package com.example.spec.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected on the command line, as {@code org.openjdk.jmh.Main} does, with
+ * the GC profiler and JSON results ({@code jmh-result.json}) unless other profilers or another
+ * result format are given, so every run reports throughput and allocation rate in a form that can
+ * be compared with earlier runs.
+ * <pre>
+ * mvn -f benchmarks/pom.xml package
+ * java -jar benchmarks/target/benchmarks.jar ExecutionBenchmark -p rows=1000,1000000
+ * </pre>
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList() || commandLine.shouldListWithParams() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+            if (!commandLine.getResult().hasValue()) {
+                options.result("jmh-result.json");
+            }
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.spec.bench;
+
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.filter.CompiledFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translation of a compiled filter into a criteria query, and into an executable Hibernate query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CriteriaBenchmark {
+
+    @Param({"2", "8", "32"})
+    public int width;
+
+    @Param({"4"})
+    public int depth;
+
+    private SpecContext context;
+
+    private EntityManager entityManager;
+
+    private CompiledFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = SpecContext.start(0, "spec.filter.optimize=false");
+        entityManager = context.bean(EntityManagerFactory.class).createEntityManager();
+        filter = context.service().compile(context.service().convertJSONToNode(Filters.nested(depth, width)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public CriteriaQuery<Person> criteriaQuery() {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Person> cq = cb.createQuery(Person.class);
+        Root<Person> root = cq.from(Person.class);
+        return cq.select(root).where(filter.toPredicate(root, cb));
+    }
+
+    @Benchmark
+    public TypedQuery<Person> typedQuery() {
+        return entityManager.createQuery(criteriaQuery());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.spec.bench;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.cache.CacheMode;
+import com.example.spec.service.columnar.PersonColumnStore;
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.page.KeysetPage;
+import com.example.spec.service.page.KeysetPageRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end filter execution against H2 holding {@code rows} persons, from JSON to entities.
+ * 10M rows need a larger heap: {@code -p rows=10000000 -jvmArgs -Xmx16g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExecutionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private SpecContext context;
+
+    private DynamicFilterService service;
+
+    private PersonColumnStore columnStore;
+
+    private JsonNode selective;
+
+    private JsonNode broad;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = SpecContext.start(rows, "spec.filter.columnar.enabled=true");
+        service = context.service();
+        columnStore = context.bean(PersonColumnStore.class);
+        columnStore.refresh();
+        selective = service.convertJSONToNode("""
+                {"AND": [{"age": {"eq": 42}}, {"score": {"gt": 90.5}}]}
+                """);
+        broad = service.convertJSONToNode("""
+                {"OR": [{"enrolled": {"eq": true}}, {"age": {"lt": 50}}]}
+                """);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Person> selective() {
+        return service.getAllPersons(selective, CacheMode.BYPASS);
+    }
+
+    @Benchmark
+    public List<Person> selectiveColumnStore() {
+        return service.getAllPersonsFromColumnStore(selective);
+    }
+
+    @Benchmark
+    public long countBroad() {
+        return service.countPersons(broad);
+    }
+
+    @Benchmark
+    public KeysetPage<Person> firstPageBroad() {
+        return service.getPersons(broad, KeysetPageRequest.first("score", Sort.Direction.DESC, 100));
+    }
+}
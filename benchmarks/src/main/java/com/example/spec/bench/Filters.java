@@ -0,0 +1,56 @@
+package com.example.spec.bench;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Synthetic JSON filters over the dataset of {@link SpecContext}.
+ */
+final class Filters {
+
+    private static final String[] CONDITIONS = {
+            "{\"age\": {\"eq\": %d}}",
+            "{\"score\": {\"gt\": %d.5}}",
+            "{\"name\": {\"in\": [\"name-%d\", \"name-1%d\"]}}",
+            "{\"date\": {\"ge\": \"2024-02-%02dT00:00:00\"}}",
+            "{\"enrolled\": {\"!eq\": %b}}",
+            "{\"id\": {\"le\": %d}}"
+    };
+
+    private Filters() {
+    }
+
+    /**
+     * A filter of {@code depth} nested junctions, alternating AND and OR, each holding
+     * {@code width - 1} conditions and the next junction.
+     */
+    static String nested(int depth, int width) {
+        return junction(0, depth, width);
+    }
+
+    /**
+     * An {@code in} list of {@code size} ids spread over the first {@code rows} ids.
+     */
+    static String idsIn(int size, int rows) {
+        long step = Math.max(1, rows / size);
+        return "{\"id\": {\"in\": [" + IntStream.range(0, size)
+                .mapToObj(i -> Long.toString(1 + i * step))
+                .collect(Collectors.joining(",")) + "]}}";
+    }
+
+    private static String junction(int level, int depth, int width) {
+        String children = IntStream.range(0, width - 1)
+                .mapToObj(i -> condition(level * width + i))
+                .collect(Collectors.joining(", "));
+        if (level + 1 < depth) {
+            children += ", " + junction(level + 1, depth, width);
+        }
+        return "{\"" + (level % 2 == 0 ? "AND" : "OR") + "\": [" + children + "]}";
+    }
+
+    private static String condition(int index) {
+        String template = CONDITIONS[index % CONDITIONS.length];
+        int value = index % 28 + 1;
+        return template.contains("%b") ? template.formatted(index % 2 == 0) : template.formatted(value, value);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.spec.bench;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.filter.CompiledFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters with large {@code in} lists: compilation from raw JSON and from a tree, and a count
+ * query whose list is translated by the configured strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InListBenchmark {
+
+    @Param({"16", "256", "4096", "65536"})
+    public int size;
+
+    @Param({"100000"})
+    public int rows;
+
+    private SpecContext context;
+
+    private DynamicFilterService service;
+
+    private byte[] bytes;
+
+    private JsonNode node;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = SpecContext.start(rows);
+        service = context.service();
+        String json = Filters.idsIn(size, rows);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        node = service.convertJSONToNode(json);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CompiledFilter compileStreaming() throws IOException {
+        return service.compile(bytes);
+    }
+
+    @Benchmark
+    public CompiledFilter compileTree() {
+        return service.compile(node);
+    }
+
+    @Benchmark
+    public long count() {
+        return service.countPersons(node);
+    }
+}
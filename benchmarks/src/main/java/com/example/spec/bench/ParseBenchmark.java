@@ -0,0 +1,81 @@
+package com.example.spec.bench;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.filter.CompiledFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and compilation of filters of increasing depth and width. Repeated shapes are served
+ * by the plan cache, as they are in steady state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    @Param({"2", "8", "32"})
+    public int width;
+
+    private SpecContext context;
+
+    private DynamicFilterService service;
+
+    private String json;
+
+    private byte[] bytes;
+
+    private JsonNode node;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = SpecContext.start(0);
+        service = context.service();
+        json = Filters.nested(depth, width);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        node = service.convertJSONToNode(json);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public JsonNode convertJSONToNode() throws IOException {
+        return service.convertJSONToNode(json);
+    }
+
+    @Benchmark
+    public Specification<?> parseFilters() {
+        return service.parseFilters(node);
+    }
+
+    @Benchmark
+    public CompiledFilter compileStreaming() throws IOException {
+        return service.compile(bytes);
+    }
+}
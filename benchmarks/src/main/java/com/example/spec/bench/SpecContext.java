@@ -0,0 +1,65 @@
+package com.example.spec.bench;
+
+import com.example.spec.SpecApplication;
+import com.example.spec.service.DynamicFilterService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Application context of a benchmark trial, backed by an in-memory H2 database seeded with a
+ * synthetic {@code Person} dataset.
+ */
+final class SpecContext implements AutoCloseable {
+
+    private static final int CHUNK = 1_000_000;
+
+    private final ConfigurableApplicationContext context;
+
+    private SpecContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Starts the application on a fresh database holding {@code rows} persons with ids
+     * {@code 1..rows}: names cycle through 10 000 values, ages through 100, scores through
+     * {@code 0.00..99.99}, dates are one minute apart from 2024-01-01 and every third person is
+     * enrolled.
+     */
+    static SpecContext start(int rows, String... properties) {
+        String[] arguments = new String[properties.length + 1];
+        arguments[0] = "--spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        for (int i = 0; i < properties.length; i++) {
+            arguments[i + 1] = "--" + properties[i];
+        }
+        SpecContext spec = new SpecContext(SpringApplication.run(SpecApplication.class, arguments));
+        spec.seed(rows);
+        return spec;
+    }
+
+    DynamicFilterService service() {
+        return bean(DynamicFilterService.class);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private void seed(int rows) {
+        JdbcTemplate jdbcTemplate = bean(JdbcTemplate.class);
+        for (long from = 1; from <= rows; from += CHUNK) {
+            jdbcTemplate.update("""
+                    INSERT INTO t1 (id, name, age, score, date, enrolled)
+                    SELECT x, CONCAT('name-', MOD(x, 10000)), MOD(x, 100), MOD(x, 10000) / 100.0,
+                           DATEADD('MINUTE', x, TIMESTAMP '2024-01-01 00:00:00'), MOD(x, 3) = 0
+                    FROM SYSTEM_RANGE(?, ?)
+                    """, from, Math.min(rows, from + CHUNK - 1));
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
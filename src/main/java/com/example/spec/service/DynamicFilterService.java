@@ -1,23 +1,71 @@
 package com.example.spec.service;
 
+import com.example.spec.service.aggregate.AggregationRequest;
+import com.example.spec.service.aggregate.FilterAggregator;
+import com.example.spec.service.async.AsyncFilterExecutor;
+import com.example.spec.service.batch.BatchFilterExecutor;
+import com.example.spec.service.bulk.BulkFilterExecutor;
+import com.example.spec.service.cache.CacheMode;
+import com.example.spec.service.cache.FilterCacheStats;
+import com.example.spec.service.cache.FilterResultCache;
+import com.example.spec.service.cache.PersonCacheInvalidator;
+import com.example.spec.service.columnar.PersonColumnStore;
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.cost.FilterAdmission;
+import com.example.spec.service.cost.FilterCost;
 import com.example.spec.service.entity.Person;
 import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.FilterCompiler;
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.filter.InMemoryFilterCompiler;
+import com.example.spec.service.filter.Logic;
+import com.example.spec.service.metrics.FilterExplainer;
+import com.example.spec.service.metrics.FilterExplanation;
+import com.example.spec.service.metrics.FilterMetrics;
+import com.example.spec.service.metrics.FilterPhase;
+import com.example.spec.service.page.KeysetPage;
+import com.example.spec.service.page.KeysetPageRequest;
+import com.example.spec.service.page.KeysetPaginator;
+import com.example.spec.service.parallel.ParallelFilterExecutor;
+import com.example.spec.service.projection.FilterProjector;
+import com.example.spec.service.readonly.ReadMode;
+import com.example.spec.service.readonly.ReadModeReport;
+import com.example.spec.service.readonly.ReadOnlyFilterExecutor;
 import com.example.spec.service.repository.PersonRepository;
+import com.example.spec.service.stream.ExportFormat;
+import com.example.spec.service.stream.FilterResultStreamer;
+import com.example.spec.service.stream.PersonExportWriter;
+import com.example.spec.service.subscription.FilterSubscriber;
+import com.example.spec.service.subscription.FilterSubscription;
+import com.example.spec.service.subscription.FilterSubscriptionRegistry;
+import com.example.spec.service.usage.FilterUsage;
+import com.example.spec.service.usage.FilterUsageCollector;
+import com.example.spec.service.usage.IndexAdvisor;
+import com.example.spec.service.usage.IndexRecommendation;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.persistence.criteria.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.*;
-import java.util.function.BinaryOperator;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -28,232 +76,414 @@ public class DynamicFilterService {
 
     private final PersonRepository personRepository;
 
+    private final FilterCompiler filterCompiler;
+
+    private final KeysetPaginator keysetPaginator;
+
+    private final FilterResultStreamer resultStreamer;
+
+    private final FilterProjector projector;
+
+    private final InMemoryFilterCompiler inMemoryFilterCompiler;
+
+    private final ObjectProvider<PersonColumnStore> columnStore;
+
+    private final FilterResultCache resultCache;
+
+    private final BatchFilterExecutor batchExecutor;
+
+    private final AsyncFilterExecutor asyncExecutor;
+
+    private final FilterMetrics metrics;
+
+    private final FilterAdmission admission;
+
+    private final FilterUsageCollector usageCollector;
+
+    private final IndexAdvisor indexAdvisor;
+
+    private final FilterExplainer explainer;
+
+    private final BulkFilterExecutor bulkExecutor;
+
+    private final PersonCacheInvalidator cacheInvalidator;
+
+    private final ReadOnlyFilterExecutor readOnlyExecutor;
+
+    private final ParallelFilterExecutor parallelExecutor;
+
+    private final FilterAggregator aggregator;
+
+    private final FilterSubscriptionRegistry subscriptions;
+
+    private final FilterProperties properties;
+
     public JsonNode convertJSONToNode(String json) throws IOException {
-        return mapper.readTree(json);
+        long start = System.nanoTime();
+        try {
+            return mapper.readTree(json);
+        } finally {
+            metrics.record(FilterPhase.PARSE, start);
+        }
     }
 
     public List<Person> getAllPersons(JsonNode jsonFilter) {
-        Specification<Person> s = parseFilters(jsonFilter);
-        return personRepository.findAll(s);
+        return getAllPersons(jsonFilter, CacheMode.USE);
     }
 
-    public <T> Specification<T> parseFilters(JsonNode node) {
+    /**
+     * Returns matching persons, answering repeated filters from the result cache unless
+     * {@code cacheMode} bypasses it. Persons answered from the cache are detached copies.
+     */
+    public List<Person> getAllPersons(JsonNode jsonFilter, CacheMode cacheMode) {
+        return getAllPersons(compile(jsonFilter), cacheMode);
+    }
 
-        if (node.isObject()) {
+    public List<Person> getAllPersons(InputStream jsonFilter) throws IOException {
+        return getAllPersons(compile(jsonFilter), CacheMode.USE);
+    }
 
-            Iterator<Map.Entry<String, JsonNode>> fieldIterator = node.fields();
+    private List<Person> getAllPersons(CompiledFilter filter, CacheMode cacheMode) {
+        if (filter.matchesNothing()) {
+            return List.of();
+        }
+        return resultCache.get(Person.class, filter, cacheMode,
+                () -> admission.execute(Person.class, filter,
+                        () -> metrics.query(Person.class, "list", filter, () -> findAll(filter))));
+    }
 
-            if (!fieldIterator.hasNext()) {
-                throw new FilterException("Empty object! Cannot determine predicate or logic operation");
-            }
-            Map.Entry<String, JsonNode> filedEntry = fieldIterator.next();
+    /**
+     * Returns matching persons, querying ranges of ids concurrently on several connections;
+     * with {@code ordered} the persons are sorted by id. Meant for broad filters over the whole
+     * table: only committed rows are seen and the persons are detached.
+     */
+    public List<Person> getAllPersonsParallel(JsonNode jsonFilter, boolean ordered) {
+        CompiledFilter filter = compile(jsonFilter);
+        return admission.execute(Person.class, filter,
+                () -> metrics.query(Person.class, "parallel-list", filter, () -> parallelExecutor.list(Person.class, filter, ordered)));
+    }
 
-            if (filedEntry.getKey().equals("AND") || (filedEntry.getKey().equals("OR"))) {
+    /**
+     * Subscribes to the persons matching the filter: {@code subscriber} receives the matching
+     * persons once, then enter, update and leave deltas as persons are saved or deleted through
+     * {@code PersonRepository} and committed. Bulk updates and deletes are not reported.
+     */
+    public FilterSubscription subscribePersons(JsonNode jsonFilter, FilterSubscriber<Person> subscriber) {
+        CompiledFilter filter = compile(jsonFilter);
+        return subscriptions.subscribe(Person.class, filter, () -> getAllPersons(filter, CacheMode.BYPASS), subscriber);
+    }
 
-                log.debug(filedEntry.getKey().equals("AND") ? "AND" : "OR");
+    public CompletableFuture<List<Person>> getAllPersonsAsync(JsonNode jsonFilter) {
+        return asyncExecutor.list(Person.class, compile(jsonFilter));
+    }
 
-                if (!filedEntry.getValue().isArray()) {
-                    throw new FilterException("Array is expected for logic operations: " + node);
-                }
+    /**
+     * Runs the filter in the background. The query is cancelled in the database when the future
+     * is cancelled or the timeout passes, which completes the future with a
+     * {@link java.util.concurrent.TimeoutException}.
+     */
+    public CompletableFuture<List<Person>> getAllPersonsAsync(JsonNode jsonFilter, Duration timeout) {
+        return asyncExecutor.list(Person.class, compile(jsonFilter), timeout);
+    }
 
-                Iterator<JsonNode> arrayItemsIterator = filedEntry.getValue().elements();
-                if (!arrayItemsIterator.hasNext()) throw new FilterException("Empty predicates list: " + node);
+    /**
+     * Evaluates many filters with a single query, returning the persons matching each filter in
+     * the order of the filters.
+     */
+    public List<List<Person>> getAllPersons(List<JsonNode> jsonFilters) {
+        List<CompiledFilter> filters = jsonFilters.stream().map(this::compile).toList();
+        return batch("batch-list", filters, () -> batchExecutor.rows(Person.class, filters));
+    }
 
-                List<Specification<T>> specifications = new ArrayList<>();
-                while (arrayItemsIterator.hasNext()) {
-                    JsonNode n = arrayItemsIterator.next();
-                    Specification<T> specification = parseFilters(n);
-                    specifications.add(specification);
-                }
+    /**
+     * Evaluates many filters with a single query, returning the ids matching each filter in the
+     * order of the filters.
+     */
+    public List<List<Long>> getPersonIds(List<JsonNode> jsonFilters) {
+        List<CompiledFilter> filters = jsonFilters.stream().map(this::compile).toList();
+        return batch("batch-ids", filters, () -> batchExecutor.ids(Person.class, Long.class, filters));
+    }
 
-                BinaryOperator<Specification<T>> operator = filedEntry.getKey().equals("AND")
-                        ? Specification::and
-                        : Specification::or;
+    /**
+     * Admits and measures a batch as the disjunction of its filters, which is what its single
+     * query scans for.
+     */
+    private <R> List<R> batch(String operation, List<CompiledFilter> filters, Supplier<List<R>> query) {
+        if (filters.isEmpty()) {
+            return List.of();
+        }
+        CompiledFilter union = new CompiledFilter(
+                filters.stream().map(CompiledFilter::shape).collect(Collectors.joining(",", Logic.OR.name() + "(", ")")),
+                new FilterNode.Junction(Logic.OR, filters.stream().map(CompiledFilter::root).toList()),
+                filters.get(0).inLists());
+        return admission.execute(Person.class, union,
+                () -> metrics.query(Person.class, operation, union, () -> read(query)));
+    }
 
-                Specification<T> combinedSpec = specifications.stream()
-                        .reduce(operator)
-                        .orElseThrow(() -> new FilterException("Error combining specifications"));
+    public FilterCacheStats cacheStats() {
+        return resultCache.stats();
+    }
 
-                return combinedSpec;
-            } else {
-                return parseJsonNode(node);
-            }
-        } else
-            throw new FilterException("Object is expected to describe predicate or logic operations!");
+    /**
+     * Fields, operators and field combinations used by executed person filters, with their
+     * query times.
+     */
+    public FilterUsage filterUsage() {
+        return usageCollector.usage(Person.class);
     }
 
-    private <T> Specification<T> parseJsonNode(JsonNode node) {
+    /**
+     * Indexes on the person table that would serve the observed filters, most beneficial first.
+     */
+    public List<IndexRecommendation> adviseIndexes() {
+        return indexAdvisor.advise(Person.class);
+    }
 
-        try {
-            Iterator<Map.Entry<String, JsonNode>> fieldIterator = node.fields();
+    /**
+     * Answers the filter from the in-process column store instead of the database. The store must
+     * be enabled with {@code spec.filter.columnar.enabled}.
+     */
+    public List<Person> getAllPersonsFromColumnStore(JsonNode jsonFilter) {
+        PersonColumnStore store = columnStore.getIfAvailable();
+        if (store == null) {
+            throw new FilterException("Column store is not enabled");
+        }
+        return store.query(compile(jsonFilter));
+    }
 
-            Map.Entry<String, JsonNode> fieldEntry = fieldIterator.next();
+    public long countPersons(JsonNode jsonFilter) {
+        CompiledFilter filter = compile(jsonFilter);
+        return filter.matchesNothing() ? 0 : admission.execute(Person.class, filter,
+                () -> metrics.query(Person.class, "count", filter, () -> count(filter)));
+    }
 
-            if (fieldIterator.hasNext()) throw new IllegalArgumentException("Only one predicate is allowed: " + node);
+    public boolean existsPersons(JsonNode jsonFilter) {
+        CompiledFilter filter = compile(jsonFilter);
+        return !filter.matchesNothing() && admission.execute(Person.class, filter,
+                () -> metrics.query(Person.class, "exists", filter, () -> exists(filter)));
+    }
 
-            String field = fieldEntry.getKey();
+    /**
+     * Runs the filter on the managed path and in the given read-only mode and reports the time,
+     * memory and persistence context entries saved by the latter.
+     */
+    public ReadModeReport compareReadModes(JsonNode jsonFilter, ReadMode mode) {
+        return readOnlyExecutor.compare(Person.class, compile(jsonFilter), mode);
+    }
 
-            if (!fieldEntry.getValue().isObject()) {
-                throw new IllegalArgumentException("Object is expected to describe predicate for field: " + field);
-            }
-            if (!fieldEntry.getValue().fields().hasNext()) {
-                throw new IllegalArgumentException("No value(s) for predicate");
-            }
-            Map.Entry<String, JsonNode> opValueEntry = fieldEntry.getValue().fields().next();
-            
-            String operation = opValueEntry.getKey();
-            JsonNode valueNode = opValueEntry.getValue();
-            
-            return getSpecification(field, valueNode, operation);
-
-        } catch (Exception e) {
-            log.error("Error!", e);
-            throw new FilterException("Error parsing predicate!", e);
+    private List<Person> findAll(CompiledFilter filter) {
+        Specification<Person> specification = metrics.specification(filter);
+        return properties.getReadMode() == ReadMode.STATELESS
+                ? readOnlyExecutor.list(Person.class, specification)
+                : read(() -> personRepository.findAll(specification));
+    }
+
+    private long count(CompiledFilter filter) {
+        Specification<Person> specification = metrics.specification(filter);
+        return properties.getReadMode() == ReadMode.STATELESS
+                ? readOnlyExecutor.count(Person.class, specification)
+                : read(() -> personRepository.count(specification));
+    }
+
+    private boolean exists(CompiledFilter filter) {
+        Specification<Person> specification = metrics.specification(filter);
+        return properties.getReadMode() == ReadMode.STATELESS
+                ? readOnlyExecutor.exists(Person.class, specification)
+                : read(() -> personRepository.exists(specification));
+    }
+
+    private <R> R read(Supplier<R> query) {
+        return properties.getReadMode() == ReadMode.MANAGED ? query.get() : readOnlyExecutor.readOnly(query);
+    }
+
+    /**
+     * Sets the given fields of all matching persons with a single {@code UPDATE} and returns the
+     * number of updated rows. Entity listeners are not invoked.
+     */
+    @Transactional
+    public int updatePersons(JsonNode jsonFilter, Map<String, Object> assignments) {
+        int rows = bulkExecutor.update(Person.class, compile(jsonFilter), assignments);
+        cacheInvalidator.invalidate();
+        columnStore.ifAvailable(PersonColumnStore::refreshAfterCommit);
+        return rows;
+    }
+
+    /**
+     * Deletes all matching persons with a single {@code DELETE} and returns the number of deleted
+     * rows. Entity listeners are not invoked.
+     */
+    @Transactional
+    public int deletePersons(JsonNode jsonFilter) {
+        int rows = bulkExecutor.delete(Person.class, compile(jsonFilter));
+        cacheInvalidator.invalidate();
+        columnStore.ifAvailable(PersonColumnStore::refreshAfterCommit);
+        return rows;
+    }
+
+    public KeysetPage<Person> getPersons(JsonNode jsonFilter, KeysetPageRequest request) {
+        CompiledFilter filter = compile(jsonFilter);
+        if (filter.matchesNothing()) {
+            return new KeysetPage<>(List.of(), null);
         }
+        return admission.execute(Person.class, filter,
+                () -> metrics.query(Person.class, "keyset-page", filter,
+                        () -> read(() -> keysetPaginator.page(Person.class, filter, request))));
     }
 
-    private <T> Specification<T> getSpecification(String field, JsonNode valueNode, String operation) {
-        
-        String value = valueNode.asText();
-        
-        log.debug("{} {} {}", field, operation, value);
-        
-        return (root, cq, cb) -> {
-            Path<Object> path = root.get(field);
-
-            switch (operation) {
-                case "eq": {
-                    if (!valueNode.isNull()) {
-                        return cb.equal(path, parseStringToType(path.getJavaType(), value));
-                    } else {
-                        return cb.isNull(path);
-                    }
-                }
-                case "!eq": {
-                    if (!valueNode.isNull()) {
-                        return cb.notEqual(path, parseStringToType(path.getJavaType(), value));
-                    } else {
-                        return cb.isNotNull(path);
-                    }
-                }
-                case "gt": {
-                    if (isLocalDateTime(path)) {
-                        return cb.greaterThan(root.get(field), LocalDateTime.parse(value));
-                    } else if (isLocalDate(path)) {
-                        return cb.greaterThan(root.get(field), LocalDate.parse(value));
-                    } else if (isNumber(path)) {
-                        return cb.gt(root.get(field), (Number) parseStringToType(path.getJavaType(), value));
-                    }
-                    throw new IllegalArgumentException("'%s' operation supported only for numbers and dates".formatted(operation));
-                }
-                case "ge": {
-                    if (isLocalDateTime(path)) {
-                        return cb.greaterThanOrEqualTo(root.get(field), LocalDateTime.parse(value));
-                    } else if (isLocalDate(path)) {
-                        return cb.greaterThanOrEqualTo(root.get(field), LocalDate.parse(value));
-                    } else if (isNumber(path)) {
-                        return cb.ge(root.get(field), (Number) parseStringToType(path.getJavaType(), value));
-                    }
-                    throw new IllegalArgumentException("'%s' operation supported only for numbers and dates".formatted(operation));
-                }
-                case "lt": {
-                    if (isLocalDateTime(path)) {
-                        return cb.lessThan(root.get(field), LocalDateTime.parse(value));
-                    } else if (isLocalDate(path)) {
-                        return cb.lessThan(root.get(field), LocalDate.parse(value));
-                    } else if (isNumber(path)) {
-                        return cb.lt(root.get(field), (Number) parseStringToType(path.getJavaType(), value));
-                    }
-                    throw new IllegalArgumentException("'%s' operation supported only for numbers and dates".formatted(operation));
-                }
-                case "le": {
-                    if (isLocalDateTime(path)) {
-                        return cb.lessThanOrEqualTo(root.get(field), LocalDateTime.parse(value));
-                    } else if (isLocalDate(path)) {
-                        return cb.lessThanOrEqualTo(root.get(field), LocalDate.parse(value));
-                    } else if (isNumber(path)) {
-                        return cb.le(root.get(field), (Number) parseStringToType(path.getJavaType(), value));
-                    }
-                    throw new IllegalArgumentException("'%s' operation supported only for numbers and dates".formatted(operation));
-                }
-                case "in": {
-                    if (!valueNode.isArray()) {
-                        throw new IllegalArgumentException("'In' operation supported only for arrays");
-                    }
-                    List<String> values = getValues(valueNode);
-                    return cb.in(root.get(field))
-                            .value(parseStringToType(path.getJavaType(), values));
-                }
-                case "!in": {
-                    if (!valueNode.isArray()) {
-                        throw new IllegalArgumentException("'!In' operation supported only for arrays");
-                    }
-                    List<String> values = getValues(valueNode);
-                    return cb.in(root.get(field))
-                            .value(parseStringToType(path.getJavaType(), values))
-                            .not();
+    public List<Person> getTopPersons(JsonNode jsonFilter, String sortField, Sort.Direction direction, int limit) {
+        return getPersons(jsonFilter, KeysetPageRequest.first(sortField, direction, limit)).content();
+    }
+
+    /**
+     * Returns only the requested fields of matching persons, keyed by field name in request order.
+     */
+    public List<Map<String, Object>> getPersonFields(JsonNode jsonFilter, List<String> fields) {
+        CompiledFilter filter = compile(jsonFilter);
+        return admission.execute(Person.class, filter,
+                () -> metrics.query(Person.class, "fields", filter,
+                        () -> read(() -> projector.maps(Person.class, filter, fields))));
+    }
+
+    /**
+     * Computes the requested aggregates of matching persons per group in the database, returning
+     * one map per group keyed by the group fields and the aggregate aliases.
+     */
+    public List<Map<String, Object>> aggregatePersons(JsonNode jsonFilter, AggregationRequest request) {
+        CompiledFilter filter = compile(jsonFilter);
+        return admission.execute(Person.class, filter,
+                () -> metrics.query(Person.class, "aggregate", filter,
+                        () -> read(() -> aggregator.maps(Person.class, metrics.specification(filter), request))));
+    }
+
+    /**
+     * Aggregates matching persons as described by the JSON form of {@link AggregationRequest}.
+     */
+    public List<Map<String, Object>> aggregatePersons(JsonNode jsonFilter, JsonNode aggregation) {
+        return aggregatePersons(jsonFilter, AggregationRequest.parse(aggregation));
+    }
+
+    /**
+     * Returns matching persons projected into a record whose components name the selected fields.
+     */
+    public <R> List<R> getPersons(JsonNode jsonFilter, Class<R> recordType) {
+        CompiledFilter filter = compile(jsonFilter);
+        return admission.execute(Person.class, filter,
+                () -> metrics.query(Person.class, "records", filter,
+                        () -> read(() -> projector.records(Person.class, filter, recordType))));
+    }
+
+    /**
+     * Streams matching persons as detached entities. Must be called inside a transaction and the
+     * returned stream must be closed.
+     * <p>
+     * The stream is consumed after this method returns, so its query neither waits for an
+     * admission slot nor is measured; {@link #forEachPerson} does both.
+     */
+    public Stream<Person> streamPersons(JsonNode jsonFilter) {
+        return resultStreamer.stream(Person.class, compile(jsonFilter));
+    }
+
+    @Transactional(readOnly = true)
+    public long forEachPerson(JsonNode jsonFilter, Consumer<? super Person> action) {
+        return forEachPerson("for-each", compile(jsonFilter), action);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportPersons(JsonNode jsonFilter, ExportFormat format, OutputStream out) throws IOException {
+        try (PersonExportWriter writer = PersonExportWriter.of(format, out)) {
+            forEachPerson("export", compile(jsonFilter), writer);
+            return writer.rows();
+        }
+    }
+
+    private long forEachPerson(String operation, CompiledFilter filter, Consumer<? super Person> action) {
+        return admission.execute(Person.class, filter, () -> metrics.query(Person.class, operation, filter, () -> {
+            long rows = 0;
+            try (Stream<Person> persons = resultStreamer.stream(Person.class, filter)) {
+                for (Person person : (Iterable<Person>) persons::iterator) {
+                    action.accept(person);
+                    rows++;
                 }
-                default:
-                    throw new IllegalArgumentException("'%s' operation is not supported!".formatted(operation));
             }
-        };
+            return rows;
+        }));
     }
 
-    private List<String> getValues(JsonNode valueNode) {
-        List<String> list = new ArrayList<>();
-        if (valueNode.isArray()) {
-            Iterator<JsonNode> iterator = valueNode.elements();
-            while (iterator.hasNext()) {
-                list.add(iterator.next().asText());
-            }
+    /**
+     * Exports matching persons like {@link #exportPersons} while querying ranges of ids
+     * concurrently; with {@code ordered} persons are written in id order, otherwise partition by
+     * partition as they complete.
+     */
+    public long exportPersonsParallel(JsonNode jsonFilter, ExportFormat format, OutputStream out, boolean ordered) throws IOException {
+        CompiledFilter filter = compile(jsonFilter);
+        try (PersonExportWriter writer = PersonExportWriter.of(format, out)) {
+            admission.execute(Person.class, filter, () -> metrics.query(Person.class, "parallel-export", filter,
+                    () -> parallelExecutor.forEachPartition(Person.class, filter, ordered, persons -> persons.forEach(writer))));
+            return writer.rows();
         }
-        return list;
     }
 
-    private static boolean isNumber(Path<Object> path) {
-        return Number.class.isAssignableFrom(path.getJavaType());
+    /**
+     * Compiles the filter into a predicate over persons already in memory, with the same
+     * semantics as the database queries.
+     */
+    public Predicate<Person> compilePredicate(JsonNode jsonFilter) {
+        return inMemoryFilterCompiler.compile(Person.class, compile(jsonFilter));
     }
 
-    private static boolean isLocalDateTime(Path<Object> path) {
-        return path.getJavaType().isAssignableFrom(LocalDateTime.class);
+    public List<Person> filterPersons(JsonNode jsonFilter, Collection<Person> persons) {
+        return persons.stream().filter(compilePredicate(jsonFilter)).toList();
     }
 
-    private static boolean isLocalDate(Path<Object> path) {
-        return path.getJavaType().isAssignableFrom(LocalDate.class);
+    public CompiledFilter compile(InputStream json) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return compiled(filterCompiler.compile(Person.class, json));
+        } finally {
+            metrics.record(FilterPhase.COMPILE, start);
+        }
     }
 
-    private Object parseStringToType(Class<?> fieldType, String value) {
-        if (Number.class.isAssignableFrom(fieldType)) {
-            if (fieldType.isAssignableFrom(BigDecimal.class)) {
-                return new BigDecimal(value);
-            } else if (fieldType.isAssignableFrom(Integer.class)) {
-                return Integer.valueOf(value);
-            } else if (fieldType.isAssignableFrom(Long.class)) {
-                return Long.valueOf(value);
-            } else if (fieldType.isAssignableFrom(Double.class)) {
-                return Double.valueOf(value);
-            } else if (fieldType.isAssignableFrom(Float.class)) {
-                return Float.valueOf(value);
-            } else if (fieldType.isAssignableFrom(Short.class)) {
-                return Short.valueOf(value);
-            } else if (fieldType.isAssignableFrom(Byte.class)) {
-                return Byte.valueOf(value);
-            }
-        } else if (fieldType.isAssignableFrom(String.class)) {
-            return value;
-        } else if (fieldType.isAssignableFrom(LocalDateTime.class)) {
-            return LocalDateTime.parse(value);
-        } else if (fieldType.isAssignableFrom(LocalDate.class)) {
-            return LocalDate.parse(value);
-        }else if (fieldType.isAssignableFrom(Boolean.class)) {
-            return Boolean.valueOf(value);
+    public CompiledFilter compile(byte[] json) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return compiled(filterCompiler.compile(Person.class, json));
+        } finally {
+            metrics.record(FilterPhase.COMPILE, start);
         }
-        throw new FilterException("Field type '%s' is not supported!".formatted(fieldType));
     }
 
-    private Object parseStringToType(Class<?> fieldType, List<String> values) {
-        return values.stream()
-                .map(e -> parseStringToType(fieldType, e))
-                .collect(Collectors.toList());
+    public CompiledFilter compile(JsonNode node) {
+        return compiled(metrics.time(FilterPhase.COMPILE, () -> filterCompiler.compile(Person.class, node)));
+    }
+
+    private CompiledFilter compiled(CompiledFilter compiled) {
+        log.debug("Compiled filter shape: {}", compiled.shape());
+        FilterCost cost = admission.check(Person.class, compiled);
+        return compiled.withCost(cost);
+    }
+
+    /**
+     * Estimated cost of the filter, as used by admission control.
+     */
+    public FilterCost estimateCost(JsonNode jsonFilter) {
+        return compile(jsonFilter).cost();
+    }
+
+    public FilterExplanation explain(JsonNode jsonFilter) {
+        return explain(jsonFilter, false);
+    }
+
+    /**
+     * Returns the normalized filter, the SQL and bind values it generates and the execution plan
+     * of the database. With {@code analyze} the query is executed by {@code EXPLAIN ANALYZE} to
+     * report actual row counts and timings.
+     */
+    public FilterExplanation explain(JsonNode jsonFilter, boolean analyze) {
+        return explainer.explain(Person.class, compile(jsonFilter), analyze);
+    }
+
+    public <T> Specification<T> parseFilters(JsonNode node) {
+        return compile(node).toSpecification();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.example.spec.service.aggregate;
+
+/**
+ * One aggregated column: {@code function} over {@code field}, returned under {@code alias}. A
+ * {@code null} field counts rows.
+ */
+public record Aggregate(AggregateFunction function, String field, String alias) {
+
+    public Aggregate(AggregateFunction function, String field) {
+        this(function, field, field == null ? function.token() : function.token() + '_' + field);
+    }
+
+    public static Aggregate count() {
+        return new Aggregate(AggregateFunction.COUNT, null);
+    }
+
+    public static Aggregate count(String field) {
+        return new Aggregate(AggregateFunction.COUNT, field);
+    }
+
+    public static Aggregate sum(String field) {
+        return new Aggregate(AggregateFunction.SUM, field);
+    }
+
+    public static Aggregate avg(String field) {
+        return new Aggregate(AggregateFunction.AVG, field);
+    }
+
+    public static Aggregate min(String field) {
+        return new Aggregate(AggregateFunction.MIN, field);
+    }
+
+    public static Aggregate max(String field) {
+        return new Aggregate(AggregateFunction.MAX, field);
+    }
+
+    public Aggregate as(String alias) {
+        return new Aggregate(function, field, alias);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.spec.service.aggregate;
+
+import com.example.spec.service.exception.FilterException;
+
+/**
+ * Aggregate functions of aggregation requests.
+ */
+public enum AggregateFunction {
+
+    COUNT("count"),
+    SUM("sum"),
+    AVG("avg"),
+    MIN("min"),
+    MAX("max");
+
+    private final String token;
+
+    AggregateFunction(String token) {
+        this.token = token;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    /**
+     * Whether the function only applies to numeric fields.
+     */
+    public boolean isNumeric() {
+        return this == SUM || this == AVG;
+    }
+
+    public static AggregateFunction fromToken(String token) {
+        for (AggregateFunction function : values()) {
+            if (function.token.equals(token)) {
+                return function;
+            }
+        }
+        throw new FilterException("'%s' aggregate is not supported!".formatted(token));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.spec.service.aggregate;
+
+import com.example.spec.service.exception.FilterException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fields to group by and aggregates to compute per group; without group fields the aggregates
+ * are computed over all matching rows.
+ * <p>
+ * The JSON form lists the group fields and the aggregates, each an object with the function as
+ * its key, the field (or {@code "*"} to count rows) as its value and an optional alias:
+ * <pre>
+ * {"groupBy": ["age"], "aggregates": [{"count": "*"}, {"avg": "score", "as": "average"}]}
+ * </pre>
+ */
+public record AggregationRequest(List<String> groupBy, List<Aggregate> aggregates) {
+
+    private static final String ALL_ROWS = "*";
+
+    private static final String ALIAS = "as";
+
+    public AggregationRequest {
+        groupBy = List.copyOf(groupBy);
+        aggregates = List.copyOf(aggregates);
+    }
+
+    public static AggregationRequest of(List<String> groupBy, Aggregate... aggregates) {
+        return new AggregationRequest(groupBy, List.of(aggregates));
+    }
+
+    public static AggregationRequest parse(JsonNode node) {
+        if (node == null || !node.isObject()) {
+            throw new FilterException("Aggregation must be an object");
+        }
+        List<String> groupBy = new ArrayList<>();
+        JsonNode fields = node.path("groupBy");
+        if (!fields.isMissingNode() && !fields.isArray()) {
+            throw new FilterException("'groupBy' must be an array of field names");
+        }
+        fields.forEach(field -> groupBy.add(field.asText()));
+        List<Aggregate> aggregates = new ArrayList<>();
+        JsonNode specs = node.path("aggregates");
+        if (!specs.isArray()) {
+            throw new FilterException("'aggregates' must be an array");
+        }
+        for (JsonNode spec : specs) {
+            aggregates.add(aggregate(spec));
+        }
+        return new AggregationRequest(groupBy, aggregates);
+    }
+
+    private static Aggregate aggregate(JsonNode spec) {
+        Aggregate aggregate = null;
+        String alias = null;
+        for (Iterator<Map.Entry<String, JsonNode>> entries = spec.fields(); entries.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            if (entry.getKey().equals(ALIAS)) {
+                alias = entry.getValue().asText();
+            } else if (aggregate == null) {
+                String field = entry.getValue().asText();
+                aggregate = new Aggregate(AggregateFunction.fromToken(entry.getKey()), ALL_ROWS.equals(field) ? null : field);
+            } else {
+                throw new FilterException("Aggregate must have a single function: " + spec);
+            }
+        }
+        if (aggregate == null) {
+            throw new FilterException("Aggregate has no function: " + spec);
+        }
+        return alias == null ? aggregate : aggregate.as(alias);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.spec.service.aggregate;
+
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.FieldDescriptor;
+import com.example.spec.service.filter.FieldRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes aggregates of the rows matching a filter in a single criteria query, grouping by the
+ * requested fields with {@code groupBy} and selecting the group fields and aggregates with
+ * {@code multiselect}, so only the aggregated rows leave the database. Groups are returned in
+ * ascending order of their fields.
+ * <p>
+ * {@code count} applies to any field and counts its non-null values, {@code sum} and {@code avg}
+ * to numeric fields and {@code min} and {@code max} to comparable ones.
+ */
+@RequiredArgsConstructor
+@Component
+public class FilterAggregator {
+
+    private final EntityManager entityManager;
+
+    private final FieldRegistry fieldRegistry;
+
+    public <T> List<Tuple> tuples(Class<T> entityClass, Specification<T> specification, AggregationRequest request) {
+        if (request.aggregates().isEmpty()) {
+            throw new FilterException("Aggregation needs at least one aggregate");
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<T> root = cq.from(entityClass);
+        Set<String> aliases = new HashSet<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Expression<?>> groups = new ArrayList<>();
+        for (String field : request.groupBy()) {
+            Path<?> path = root.get(fieldRegistry.descriptor(entityClass, field).name());
+            groups.add(path);
+            selections.add(path.alias(alias(aliases, field)));
+        }
+        for (Aggregate aggregate : request.aggregates()) {
+            selections.add(expression(entityClass, root, cb, aggregate).alias(alias(aliases, aggregate.alias())));
+        }
+        cq.multiselect(selections).groupBy(groups).orderBy(groups.stream().map(cb::asc).toList());
+        Predicate predicate = specification.toPredicate(root, cq, cb);
+        if (predicate != null) {
+            cq.where(predicate);
+        }
+        return entityManager.createQuery(cq).getResultList();
+    }
+
+    /**
+     * Returns one map per group keyed by the group fields and the aliases of the aggregates, in
+     * request order.
+     */
+    public <T> List<Map<String, Object>> maps(Class<T> entityClass, Specification<T> specification, AggregationRequest request) {
+        List<Tuple> tuples = tuples(entityClass, specification, request);
+        List<Map<String, Object>> maps = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                map.put(element.getAlias(), tuple.get(element));
+            }
+            maps.add(map);
+        }
+        return maps;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Expression<?> expression(Class<?> entityClass, Root<?> root, CriteriaBuilder cb, Aggregate aggregate) {
+        if (aggregate.field() == null) {
+            if (aggregate.function() != AggregateFunction.COUNT) {
+                throw new FilterException("'%s' aggregate needs a field".formatted(aggregate.function().token()));
+            }
+            return cb.count(root);
+        }
+        FieldDescriptor descriptor = fieldRegistry.descriptor(entityClass, aggregate.field());
+        Class<?> type = boxed(descriptor.javaType());
+        if (aggregate.function().isNumeric() && !Number.class.isAssignableFrom(type)
+                || !Comparable.class.isAssignableFrom(type) && aggregate.function() != AggregateFunction.COUNT) {
+            throw new FilterException("'%s' aggregate is not supported for field '%s' of type %s"
+                    .formatted(aggregate.function().token(), descriptor.name(), descriptor.javaType().getSimpleName()));
+        }
+        Path path = root.get(descriptor.name());
+        return switch (aggregate.function()) {
+            case COUNT -> cb.count(path);
+            case SUM -> cb.sum(path);
+            case AVG -> cb.avg(path);
+            case MIN -> cb.least(path);
+            case MAX -> cb.greatest(path);
+        };
+    }
+
+    private static String alias(Set<String> aliases, String alias) {
+        if (!aliases.add(alias)) {
+            throw new FilterException("Aggregation selects '%s' twice".formatted(alias));
+        }
+        return alias;
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return type == boolean.class ? Boolean.class : type == char.class ? Character.class : Number.class;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.spec.service.async;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.cost.FilterAdmission;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.metrics.FilterMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Runs filter queries off the caller's thread, one task per query.
+ * <p>
+ * Tasks run on virtual threads when the JVM provides them (Java 21+); either way at most
+ * {@code spec.filter.async.max-concurrency} queries, by default the size of the connection pool,
+ * hold a connection at once and the others wait for a permit. On older JVMs they run on a pool of
+ * as many daemon threads, queueing up to {@code spec.filter.async.queue-capacity} tasks; a query
+ * submitted to a full queue completes its future with a {@link RejectedExecutionException}.
+ * Expensive filters first wait for an admission slot, see {@link FilterAdmission}, without holding
+ * a permit. Every query has a deadline: it bounds the wait for a permit, is passed to the JDBC
+ * driver as the query timeout and completes the future with a {@link TimeoutException} when it
+ * passes. Cancelling the future, or its timing out, cancels the running JDBC statement; rows are
+ * scrolled and the scroll is abandoned as soon as the future completes, so a cancelled query also
+ * stops loading entities.
+ */
+@Slf4j
+@Component
+public class AsyncFilterExecutor implements DisposableBean {
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final FilterProperties properties;
+
+    private final FilterAdmission admission;
+
+    private final FilterMetrics metrics;
+
+    private final int maxConcurrency;
+
+    private final Semaphore permits;
+
+    private final ExecutorService executor;
+
+    @Autowired
+    public AsyncFilterExecutor(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                               DataSource dataSource, FilterProperties properties, FilterAdmission admission,
+                               FilterMetrics metrics) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties;
+        this.admission = admission;
+        this.metrics = metrics;
+        int configured = properties.getAsync().getMaxConcurrency();
+        this.maxConcurrency = configured > 0 ? configured
+                : dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize()
+                : 10;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.executor = newExecutor(maxConcurrency, properties.getAsync().getQueueCapacity());
+        log.debug("Async filter queries limited to {} concurrent", maxConcurrency);
+    }
+
+    public <T> CompletableFuture<List<T>> list(Class<T> entityClass, CompiledFilter filter) {
+        return list(entityClass, filter, properties.getAsync().getDefaultTimeout());
+    }
+
+    public <T> CompletableFuture<List<T>> list(Class<T> entityClass, CompiledFilter filter, Duration timeout) {
+        if (filter.matchesNothing()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletableFuture<List<T>> future = new CompletableFuture<>();
+        AtomicReference<Session> running = new AtomicReference<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> run(entityClass, filter, deadline, future, running));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((rows, failure) -> {
+            if (failure != null) {
+                task.cancel(true);
+                cancel(running.get());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Number of queries currently holding a permit.
+     */
+    public int inFlight() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    private <T> void run(Class<T> entityClass, CompiledFilter filter, long deadline,
+                         CompletableFuture<List<T>> future, AtomicReference<Session> running) {
+        try {
+            admission.execute(entityClass, filter, () -> {
+                admitted(entityClass, filter, deadline, future, running);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private <T> void admitted(Class<T> entityClass, CompiledFilter filter, long deadline,
+                              CompletableFuture<List<T>> future, AtomicReference<Session> running) {
+        try {
+            if (!permits.tryAcquire(remaining(deadline), TimeUnit.NANOSECONDS)) {
+                future.completeExceptionally(new TimeoutException("No connection available before the deadline"));
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            if (!future.isDone()) {
+                future.complete(metrics.query(entityClass, "async-list", filter,
+                        () -> transactionTemplate.execute(status -> query(entityClass, filter, deadline, future, running))));
+            }
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private <T> List<T> query(Class<T> entityClass, CompiledFilter filter, long deadline,
+                              CompletableFuture<List<T>> future, AtomicReference<Session> running) {
+        running.set(entityManager.unwrap(Session.class));
+        try {
+            if (future.isDone()) {
+                return List.of();
+            }
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<T> cq = cb.createQuery(entityClass);
+            Root<T> root = cq.from(entityClass);
+            cq.select(root).where(filter.toPredicate(root, cb));
+            try (Stream<T> rows = entityManager.createQuery(cq)
+                    .setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, timeoutMillis(deadline))
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, properties.getStreamFetchSize())
+                    .getResultStream()) {
+                List<T> result = new ArrayList<>();
+                for (Iterator<T> iterator = rows.iterator(); iterator.hasNext(); ) {
+                    if (future.isDone()) {
+                        return List.of();
+                    }
+                    result.add(iterator.next());
+                }
+                return result;
+            }
+        } finally {
+            running.set(null);
+        }
+    }
+
+    private static void cancel(Session session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.cancelQuery();
+        } catch (RuntimeException e) {
+            log.debug("Cannot cancel running filter query", e);
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * JDBC timeouts have a resolution of seconds, so the remaining time is rounded up to at least
+     * one second; the future itself still times out at the exact deadline.
+     */
+    private static int timeoutMillis(long deadline) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining(deadline) + 999_999_999L));
+        return (int) Math.min(Integer.MAX_VALUE, seconds * 1000);
+    }
+
+    /**
+     * Virtual threads are looked up reflectively so that the code still runs on Java 17. Platform
+     * threads beyond the permits would only wait for one, so the pool has as many threads, which
+     * time out when idle.
+     */
+    private static ExecutorService newExecutor(int threads, int queueCapacity) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger created = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), task -> {
+                        Thread thread = new Thread(task, "filter-async-" + created.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.spec.service.batch;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.filter.FilterSpecifications;
+import com.example.spec.service.filter.Logic;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Evaluates many filters with a single query. The distinct conditions of all filters are
+ * selected once as {@code CASE WHEN condition THEN 1 ELSE 0 END} membership columns of one scan
+ * restricted to the union of the filters; the boolean structure of every filter is then applied
+ * to those flags in memory.
+ * <p>
+ * A condition shared by several filters is rendered and evaluated once per row. Treating an
+ * unknown (null) condition as false is exact here: filters only combine conditions with AND and
+ * OR, so a filter is true exactly when it is true with every unknown condition taken as false.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class BatchFilterExecutor {
+
+    private static final String ID = "id";
+
+    private final EntityManager entityManager;
+
+    private final FilterProperties properties;
+
+    /**
+     * Returns the entities matching each filter, in the order of the filters.
+     */
+    public <T> List<List<T>> rows(Class<T> entityClass, List<CompiledFilter> filters) {
+        return execute(entityClass, filters, root -> root, tuple -> tuple.get(0, entityClass));
+    }
+
+    /**
+     * Returns the ids of the entities matching each filter, in the order of the filters.
+     */
+    public <I> List<List<I>> ids(Class<?> entityClass, Class<I> idType, List<CompiledFilter> filters) {
+        return execute(entityClass, filters, root -> root.get(ID), tuple -> tuple.get(0, idType));
+    }
+
+    /**
+     * Splits the filters into consecutive groups of at most {@code batchMaxConditions} distinct
+     * conditions, each answered by one query.
+     */
+    private <R> List<List<R>> execute(Class<?> entityClass, List<CompiledFilter> filters,
+                                      Function<Root<?>, Selection<?>> selection, Function<Tuple, R> reader) {
+        List<List<R>> results = new ArrayList<>(filters.size());
+        int from = 0;
+        Map<FilterNode.Condition, Integer> conditions = new LinkedHashMap<>();
+        List<Matcher> matchers = new ArrayList<>();
+        for (int i = 0; i < filters.size(); i++) {
+            Map<FilterNode.Condition, Integer> extended = new LinkedHashMap<>(conditions);
+            Matcher matcher = matcher(filters.get(i).root(), extended);
+            if (extended.size() > properties.getBatchMaxConditions() && !matchers.isEmpty()) {
+                results.addAll(execute(entityClass, filters.subList(from, i), conditions, matchers, selection, reader));
+                from = i;
+                extended = new LinkedHashMap<>();
+                matcher = matcher(filters.get(i).root(), extended);
+                matchers = new ArrayList<>();
+            }
+            conditions = extended;
+            matchers.add(matcher);
+        }
+        results.addAll(execute(entityClass, filters.subList(from, filters.size()), conditions, matchers, selection, reader));
+        return results;
+    }
+
+    private <R> List<List<R>> execute(Class<?> entityClass, List<CompiledFilter> filters,
+                                      Map<FilterNode.Condition, Integer> conditions, List<Matcher> matchers,
+                                      Function<Root<?>, Selection<?>> selection, Function<Tuple, R> reader) {
+        List<List<R>> results = new ArrayList<>(filters.size());
+        filters.forEach(filter -> results.add(new ArrayList<>()));
+        if (filters.stream().allMatch(CompiledFilter::matchesNothing)) {
+            return results;
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<?> root = cq.from(entityClass);
+        List<Selection<?>> selections = new ArrayList<>(conditions.size() + 1);
+        selections.add(selection.apply(root));
+        CompiledFilter translation = filters.get(0);
+        for (FilterNode.Condition condition : conditions.keySet()) {
+            Predicate predicate = FilterSpecifications.toPredicate(condition, root, cb, translation.inLists());
+            selections.add(cb.<Integer>selectCase().when(predicate, 1).otherwise(0));
+        }
+        Predicate[] union = filters.stream()
+                .filter(filter -> !filter.matchesNothing())
+                .map(filter -> filter.toPredicate(root, cb))
+                .toArray(Predicate[]::new);
+        cq.multiselect(selections).where(cb.or(union));
+
+        List<Tuple> tuples = entityManager.createQuery(cq).getResultList();
+        boolean[] flags = new boolean[conditions.size()];
+        for (Tuple tuple : tuples) {
+            for (int i = 0; i < flags.length; i++) {
+                flags[i] = ((Number) tuple.get(i + 1)).intValue() == 1;
+            }
+            R row = reader.apply(tuple);
+            for (int i = 0; i < matchers.size(); i++) {
+                if (matchers.get(i).matches(flags)) {
+                    results.get(i).add(row);
+                }
+            }
+        }
+        log.debug("Evaluated {} filters with {} distinct conditions over {} rows", filters.size(), conditions.size(), tuples.size());
+        return results;
+    }
+
+    private static Matcher matcher(FilterNode node, Map<FilterNode.Condition, Integer> conditions) {
+        if (node instanceof FilterNode.Junction junction) {
+            Matcher[] children = junction.children().stream()
+                    .map(child -> matcher(child, conditions))
+                    .toArray(Matcher[]::new);
+            return junction.logic() == Logic.AND ? all(children) : any(children);
+        }
+        if (node instanceof FilterNode.Constant constant) {
+            return constant.value() ? flags -> true : flags -> false;
+        }
+        int index = conditions.computeIfAbsent((FilterNode.Condition) node, condition -> conditions.size());
+        return flags -> flags[index];
+    }
+
+    private static Matcher all(Matcher[] children) {
+        return flags -> {
+            for (Matcher child : children) {
+                if (!child.matches(flags)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static Matcher any(Matcher[] children) {
+        return flags -> {
+            for (Matcher child : children) {
+                if (child.matches(flags)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Matcher {
+        boolean matches(boolean[] flags);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.spec.service.bulk;
+
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.FieldDescriptor;
+import com.example.spec.service.filter.FieldRegistry;
+import com.example.spec.service.filter.InMemoryFilterCompiler;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Updates and deletes the rows matching a filter with a single {@code UPDATE}/{@code DELETE}
+ * statement, without loading them.
+ * <p>
+ * Bulk statements bypass the persistence context and the second-level cache. Pending changes are
+ * flushed first; afterwards matching entities already loaded by the current persistence context
+ * are refreshed, or detached when deleted, and matching entities are evicted from the
+ * second-level cache when the entity is cached there. Entity lifecycle callbacks are not invoked.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class BulkFilterExecutor {
+
+    private final EntityManager entityManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final FieldRegistry fieldRegistry;
+
+    private final InMemoryFilterCompiler inMemoryFilterCompiler;
+
+    /**
+     * Sets the given fields of every matching row.
+     *
+     * @param assignments new values keyed by field; values of another type than the field are
+     *                    converted from their string form
+     * @return number of updated rows
+     */
+    @Transactional
+    public <T> int update(Class<T> entityClass, CompiledFilter filter, Map<String, Object> assignments) {
+        Map<String, Object> values = coerce(entityClass, assignments);
+        if (filter.matchesNothing()) {
+            return 0;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(entityClass);
+        Root<T> root = update.from(entityClass);
+        values.forEach((field, value) -> update.set(root.<Object>get(field), value));
+        update.where(filter.toPredicate(root, cb));
+
+        Target<T> target = prepare(entityClass, filter);
+        int rows = entityManager.createQuery(update).executeUpdate();
+        target.loaded().forEach(entityManager::refresh);
+        evict(target);
+        log.debug("Updated {} rows of {} matching {}", rows, entityClass.getSimpleName(), filter.shape());
+        return rows;
+    }
+
+    /**
+     * Deletes every matching row.
+     *
+     * @return number of deleted rows
+     */
+    @Transactional
+    public <T> int delete(Class<T> entityClass, CompiledFilter filter) {
+        if (filter.matchesNothing()) {
+            return 0;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<T> delete = cb.createCriteriaDelete(entityClass);
+        Root<T> root = delete.from(entityClass);
+        delete.where(filter.toPredicate(root, cb));
+
+        Target<T> target = prepare(entityClass, filter);
+        int rows = entityManager.createQuery(delete).executeUpdate();
+        target.loaded().forEach(entityManager::detach);
+        evict(target);
+        log.debug("Deleted {} rows of {} matching {}", rows, entityClass.getSimpleName(), filter.shape());
+        return rows;
+    }
+
+    private Map<String, Object> coerce(Class<?> entityClass, Map<String, Object> assignments) {
+        if (assignments.isEmpty()) {
+            throw new FilterException("No fields to update");
+        }
+        EntityType<?> entity = entityManagerFactory.getMetamodel().entity(entityClass);
+        Map<String, Object> values = new LinkedHashMap<>();
+        assignments.forEach((field, value) -> {
+            FieldDescriptor descriptor = fieldRegistry.descriptor(entityClass, field);
+            SingularAttribute<?, ?> attribute = entity.getSingularAttribute(field);
+            if (attribute.isId()) {
+                throw new FilterException("Identifier '%s' cannot be updated".formatted(field));
+            }
+            if (value == null) {
+                if (attribute.getJavaType().isPrimitive() || !attribute.isOptional()) {
+                    throw new FilterException("Field '%s' cannot be set to null".formatted(field));
+                }
+                values.put(field, null);
+            } else if (descriptor.javaType().isInstance(value)) {
+                values.put(field, value);
+            } else {
+                try {
+                    values.put(field, descriptor.coercer().apply(value.toString()));
+                } catch (RuntimeException e) {
+                    throw new FilterException("Illegal value for field '%s': %s".formatted(field, value), e);
+                }
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Flushes pending changes and finds what the statement affects outside of the database:
+     * matching entities of the persistence context and, for cached entities, the ids of the
+     * matching rows.
+     */
+    private <T> Target<T> prepare(Class<T> entityClass, CompiledFilter filter) {
+        entityManager.flush();
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        Predicate<T> predicate = inMemoryFilterCompiler.compile(entityClass, filter);
+        List<T> loaded = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entityClass.isInstance(entry.getKey()) && predicate.test(entityClass.cast(entry.getKey()))) {
+                loaded.add(entityClass.cast(entry.getKey()));
+            }
+        }
+
+        List<Object> cachedIds = List.of();
+        boolean cached = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(entityClass)
+                .canWriteToCache();
+        if (cached) {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Object> ids = cb.createQuery(Object.class);
+            Root<T> root = ids.from(entityClass);
+            EntityType<T> entity = entityManagerFactory.getMetamodel().entity(entityClass);
+            ids.select(root.get(entity.getId(entity.getIdType().getJavaType())))
+                    .where(filter.toPredicate(root, cb));
+            cachedIds = entityManager.createQuery(ids).getResultList();
+        }
+        return new Target<>(entityClass, loaded, cachedIds);
+    }
+
+    private void evict(Target<?> target) {
+        target.cachedIds().forEach(id -> entityManagerFactory.getCache().evict(target.entityClass(), id));
+    }
+
+    private record Target<T>(Class<T> entityClass, List<T> loaded, List<Object> cachedIds) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.spec.service.cache;
+
+/**
+ * Per-call use of the {@link FilterResultCache}.
+ */
+public enum CacheMode {
+
+    /**
+     * Answer from the cache when possible and cache fresh results.
+     */
+    USE,
+
+    /**
+     * Always query the database and leave the cache untouched.
+     */
+    BYPASS
+}
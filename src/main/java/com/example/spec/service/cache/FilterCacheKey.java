@@ -0,0 +1,15 @@
+package com.example.spec.service.cache;
+
+import com.example.spec.service.filter.CanonicalFilter;
+import com.example.spec.service.filter.FilterNode;
+
+/**
+ * Canonical form of a compiled filter used as a cache key, so filters differing only in field
+ * order, list order, formatting or {@code 22.0} vs {@code 22} share a key.
+ */
+record FilterCacheKey(Class<?> entityClass, String filter) {
+
+    static FilterCacheKey of(Class<?> entityClass, FilterNode root) {
+        return new FilterCacheKey(entityClass, CanonicalFilter.render(root));
+    }
+}
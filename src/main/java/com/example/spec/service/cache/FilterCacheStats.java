@@ -0,0 +1,12 @@
+package com.example.spec.service.cache;
+
+/**
+ * Counters of the {@link FilterResultCache} since startup, and its current occupancy.
+ */
+public record FilterCacheStats(long hits, long misses, long evictions, long invalidations, int entries, long weight) {
+
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
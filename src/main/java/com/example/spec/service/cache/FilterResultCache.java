@@ -0,0 +1,195 @@
+package com.example.spec.service.cache;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.EntityCopier;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of filter queries under the canonical form of the filter.
+ * <p>
+ * The cache is bounded by weight, the number of cached rows plus one per entry, and evicts the
+ * least recently used entries first; entries also expire after a fixed time to live. Every write
+ * to a cached entity type clears the whole cache through {@link #invalidate()}, see
+ * {@link PersonCacheInvalidator}. A result loaded while an invalidation happened is returned to its
+ * caller but not cached, so a load racing with a write never stores stale rows. A transaction that
+ * wrote, or whose session holds unflushed changes, neither reads nor fills the cache until it
+ * completes: it must see its own uncommitted rows, and nobody else may.
+ * <p>
+ * The cache keeps copies of the loaded entities that belong to no persistence context. A miss
+ * returns the loaded list itself; a hit returns a new list of new copies, which the caller may
+ * modify freely, but which are detached: changes to them are not saved. Enabled with
+ * {@code spec.filter.cache.enabled=true}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class FilterResultCache {
+
+    private final FilterProperties properties;
+
+    private final EntityCopier copier;
+
+    /**
+     * Looked up lazily, as the cache is needed while the entity manager factory is built.
+     */
+    private final ObjectProvider<EntityManager> entityManager;
+
+    private final LinkedHashMap<FilterCacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private long weight;
+
+    private long generation;
+
+    public <T> List<T> get(Class<T> entityClass, CompiledFilter filter, CacheMode mode, Supplier<List<T>> loader) {
+        FilterProperties.Cache settings = properties.getCache();
+        if (mode == CacheMode.BYPASS || !settings.isEnabled() || writing()) {
+            return loader.get();
+        }
+        FilterCacheKey key = FilterCacheKey.of(entityClass, filter.root());
+        long loadedGeneration;
+        List<?> cached = null;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                cached = entry.rows();
+            } else if (entry != null) {
+                remove(key, entry);
+            }
+            loadedGeneration = generation;
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return copy(cached);
+        }
+        misses.incrementAndGet();
+
+        List<T> rows = loader.get();
+        if (rows.size() >= settings.getMaxWeight() || writing()) {
+            return rows;
+        }
+        List<?> detached = copy(rows);
+        synchronized (this) {
+            if (generation == loadedGeneration) {
+                Entry entry = new Entry(detached, System.nanoTime() + settings.getTtl().toNanos());
+                Entry previous = entries.put(key, entry);
+                weight += entry.weight() - (previous == null ? 0 : previous.weight());
+                evict(settings.getMaxWeight());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Whether the current transaction wrote a cached entity type or has unflushed changes.
+     */
+    private boolean writing() {
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return true;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        EntityManager current = entityManager.getIfAvailable();
+        return current != null && current.unwrap(Session.class).isDirty();
+    }
+
+    /**
+     * Drops every cached result after a write. Inside a transaction, nothing is cached until it
+     * completes and the cache is cleared again then, so results read by a concurrent transaction
+     * before the commit, or rows of a rolled back write, are not kept.
+     */
+    public void invalidate() {
+        invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FilterResultCache.this);
+                    invalidateAll();
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        if (!entries.isEmpty()) {
+            log.debug("Invalidating {} cached filter results", entries.size());
+            entries.clear();
+            weight = 0;
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public synchronized FilterCacheStats stats() {
+        return new FilterCacheStats(hits.get(), misses.get(), evictions.get(), invalidations.get(), entries.size(), weight);
+    }
+
+    /**
+     * Evicts expired entries, then least recently used ones until the weight fits.
+     */
+    private void evict(long maxWeight) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<FilterCacheKey, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<FilterCacheKey, Entry> next = iterator.next();
+            if (weight <= maxWeight && next.getValue().expiresAt() - now > 0) {
+                continue;
+            }
+            weight -= next.getValue().weight();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(FilterCacheKey key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight();
+        evictions.incrementAndGet();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> copy(List<?> rows) {
+        List<T> copies = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            copies.add((T) copier.copy(row));
+        }
+        return copies;
+    }
+
+    private record Entry(List<?> rows, long expiresAt) {
+
+        long weight() {
+            return rows.size() + 1L;
+        }
+    }
+}
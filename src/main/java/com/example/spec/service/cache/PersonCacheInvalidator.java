@@ -0,0 +1,33 @@
+package com.example.spec.service.cache;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener clearing the {@link FilterResultCache} on every insert, update and delete
+ * of a {@code Person}, including those made through {@code PersonRepository}. The cache is
+ * cleared when the change is flushed and again when its transaction completes, see
+ * {@link FilterResultCache#invalidate()}. Bulk statements, which bypass entity listeners, call {@link #invalidate()} directly.
+ * <p>
+ * Instantiated by Spring through Hibernate's bean container.
+ */
+@RequiredArgsConstructor
+@Component
+public class PersonCacheInvalidator {
+
+    private final FilterResultCache cache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        cache.invalidate();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.Operator;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntPredicate;
+
+/**
+ * Nullable boolean column kept as one bitmap per value.
+ */
+final class BooleanColumn implements Column {
+
+    private final BitSet trues;
+
+    private final BitSet falses;
+
+    private final BitSet nulls;
+
+    BooleanColumn(BitSet trues, BitSet falses, int size) {
+        this.trues = trues;
+        this.falses = falses;
+        this.nulls = new BitSet(size);
+        nulls.set(0, size);
+        nulls.andNot(trues);
+        nulls.andNot(falses);
+    }
+
+    @Override
+    public BitSet equalTo(Object value) {
+        return (BitSet) ((Boolean) value ? trues : falses).clone();
+    }
+
+    @Override
+    public BitSet compare(Operator operator, Object bound) {
+        throw new FilterException("'%s' operation is not supported for booleans".formatted(operator.token()));
+    }
+
+    @Override
+    public IntPredicate matcher(Operator operator, Object value) {
+        if (value == null) {
+            return operator == Operator.EQ ? nulls::get : row -> !nulls.get(row);
+        }
+        return switch (operator) {
+            case EQ -> ((Boolean) value ? trues : falses)::get;
+            case NOT_EQ -> ((Boolean) value ? falses : trues)::get;
+            case IN -> {
+                Collection<?> values = (Collection<?>) value;
+                yield row -> trues.get(row) && values.contains(Boolean.TRUE) || falses.get(row) && values.contains(Boolean.FALSE);
+            }
+            case NOT_IN -> {
+                Collection<?> values = (Collection<?>) value;
+                yield values.isEmpty()
+                        ? row -> true
+                        : row -> trues.get(row) && !values.contains(Boolean.TRUE) || falses.get(row) && !values.contains(Boolean.FALSE);
+            }
+            default -> throw new FilterException("'%s' operation is not supported for booleans".formatted(operator.token()));
+        };
+    }
+
+    @Override
+    public BitSet nulls() {
+        return (BitSet) nulls.clone();
+    }
+
+    @Override
+    public Boolean get(int row) {
+        return trues.get(row) ? Boolean.TRUE : falses.get(row) ? Boolean.FALSE : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.filter.Operator;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+/**
+ * One column of a {@link ColumnarSnapshot}. Every method returns a new bitset of matching rows
+ * that the caller may modify.
+ */
+interface Column {
+
+    BitSet equalTo(Object value);
+
+    BitSet compare(Operator operator, Object bound);
+
+    BitSet nulls();
+
+    /**
+     * Tests single rows against a condition, with the null semantics of SQL. Used to refine a
+     * small candidate set instead of computing the condition's bitset over the whole column.
+     */
+    IntPredicate matcher(Operator operator, Object value);
+
+    Object get(int row);
+}
@@ -0,0 +1,462 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.filter.Logic;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable column-oriented copy of the {@code Person} table: ids and ages as primitive
+ * {@code long}s, names dictionary encoded, scores scaled to the largest scale present, dates as
+ * epoch nanoseconds and the enrolled flag as bitmaps. Scores or dates that do not fit a
+ * {@code long} in that encoding are kept as objects in a {@link ComparableColumn} instead. Filters
+ * are evaluated into a bitset of matching rows; only those rows are materialized.
+ */
+final class ColumnarSnapshot {
+
+    private static final long NANOS = 1_000_000_000L;
+
+    /**
+     * Largest scale of an encoded score: {@code 10^18} is the largest power of ten in a
+     * {@code long}.
+     */
+    private static final int MAX_SCALE = 18;
+
+    private static final long[] LONG_POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        LONG_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Candidate sets smaller than {@code size / REFINE_RATIO} rows are refined row by row.
+     */
+    private static final int REFINE_RATIO = 32;
+
+    private final int size;
+
+    private final SortedColumn ids;
+
+    private final Map<String, Column> columns;
+
+    private ColumnarSnapshot(int size, SortedColumn ids, Map<String, Column> columns) {
+        this.size = size;
+        this.ids = ids;
+        this.columns = columns;
+    }
+
+    int size() {
+        return size;
+    }
+
+    BitSet evaluate(FilterNode node) {
+        if (node instanceof FilterNode.Junction junction) {
+            return junction.logic() == Logic.AND ? intersect(junction.children()) : unite(junction.children());
+        }
+        if (node instanceof FilterNode.Constant constant) {
+            return constant.value() ? all() : new BitSet();
+        }
+        return evaluate((FilterNode.Condition) node);
+    }
+
+    /**
+     * Equality conditions, usually the most selective, are evaluated first. Once the candidate
+     * rows are few the remaining conditions are tested row by row instead of scanning their
+     * columns.
+     */
+    private BitSet intersect(List<FilterNode> children) {
+        if (children.isEmpty()) {
+            return all();
+        }
+        List<FilterNode> ordered = new ArrayList<>(children);
+        ordered.sort(Comparator.comparingInt(ColumnarSnapshot::evaluationOrder));
+        BitSet result = evaluate(ordered.get(0));
+        for (FilterNode child : ordered.subList(1, ordered.size())) {
+            int candidates = result.cardinality();
+            if (candidates == 0) {
+                break;
+            }
+            if (child instanceof FilterNode.Condition condition && candidates < size / REFINE_RATIO) {
+                IntPredicate matcher = column(condition).matcher(condition.operator(), condition.value());
+                for (int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+                    if (!matcher.test(row)) {
+                        result.clear(row);
+                    }
+                }
+            } else {
+                result.and(evaluate(child));
+            }
+        }
+        return result;
+    }
+
+    private BitSet unite(List<FilterNode> children) {
+        BitSet result = new BitSet(size);
+        for (FilterNode child : children) {
+            result.or(evaluate(child));
+        }
+        return result;
+    }
+
+    private static int evaluationOrder(FilterNode node) {
+        if (node instanceof FilterNode.Condition condition) {
+            return switch (condition.operator()) {
+                case EQ, IN -> 0;
+                case GT, GE, LT, LE -> 1;
+                case NOT_EQ, NOT_IN -> 2;
+            };
+        }
+        return 3;
+    }
+
+    private BitSet evaluate(FilterNode.Condition condition) {
+        Column column = column(condition);
+        Object value = condition.value();
+        return switch (condition.operator()) {
+            case EQ -> value == null ? column.nulls() : column.equalTo(value);
+            case NOT_EQ -> {
+                BitSet bits = nonNull(column);
+                if (value != null) {
+                    bits.andNot(column.equalTo(value));
+                }
+                yield bits;
+            }
+            case GT, GE, LT, LE -> column.compare(condition.operator(), value);
+            case IN -> anyOf(column, (Collection<?>) value);
+            case NOT_IN -> {
+                Collection<?> values = (Collection<?>) value;
+                if (values.isEmpty()) {
+                    yield all();
+                }
+                BitSet bits = nonNull(column);
+                bits.andNot(anyOf(column, values));
+                yield bits;
+            }
+        };
+    }
+
+    private Column column(FilterNode.Condition condition) {
+        Column column = columns.get(condition.field());
+        if (column == null) {
+            throw new FilterException("Unknown field '%s'".formatted(condition.field()));
+        }
+        return column;
+    }
+
+    /**
+     * Row holding the given id, or {@code -1}.
+     */
+    int rowOf(Long id) {
+        BitSet bits = ids.equalTo(id);
+        return bits.isEmpty() ? -1 : bits.nextSetBit(0);
+    }
+
+    Person materialize(int row) {
+        Person person = new Person();
+        person.setId((Long) ids.get(row));
+        person.setName((String) columns.get("name").get(row));
+        person.setAge((Integer) columns.get("age").get(row));
+        person.setScore((BigDecimal) columns.get("score").get(row));
+        person.setDate((LocalDateTime) columns.get("date").get(row));
+        person.setEnrolled((Boolean) columns.get("enrolled").get(row));
+        return person;
+    }
+
+    private BitSet all() {
+        BitSet bits = new BitSet(size);
+        bits.set(0, size);
+        return bits;
+    }
+
+    private BitSet nonNull(Column column) {
+        BitSet bits = all();
+        bits.andNot(column.nulls());
+        return bits;
+    }
+
+    private BitSet anyOf(Column column, Collection<?> values) {
+        BitSet bits = new BitSet(size);
+        for (Object value : values) {
+            bits.or(column.equalTo(value));
+        }
+        return bits;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Accumulates rows into growable primitive buffers.
+     */
+    static final class Builder {
+
+        private int size;
+
+        private long[] ids = new long[1024];
+
+        private long[] ages = new long[1024];
+
+        private String[] names = new String[1024];
+
+        private long[] scores = new long[1024];
+
+        private byte[] scoreScales = new byte[1024];
+
+        private BigDecimal[] rawScores = new BigDecimal[1024];
+
+        private long[] dates = new long[1024];
+
+        private LocalDateTime[] rawDates = new LocalDateTime[1024];
+
+        /**
+         * Whether every score fits a {@code long} at its own scale; otherwise the scores are kept
+         * in a {@link ComparableColumn}.
+         */
+        private boolean encodedScores = true;
+
+        private boolean encodedDates = true;
+
+        private final BitSet nullNames = new BitSet();
+
+        private final BitSet nullScores = new BitSet();
+
+        private final BitSet nullDates = new BitSet();
+
+        private final BitSet trues = new BitSet();
+
+        private final BitSet falses = new BitSet();
+
+        private int maxScale;
+
+        Builder add(Person person) {
+            if (size == ids.length) {
+                int capacity = size << 1;
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                names = Arrays.copyOf(names, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                scoreScales = Arrays.copyOf(scoreScales, capacity);
+                rawScores = Arrays.copyOf(rawScores, capacity);
+                dates = Arrays.copyOf(dates, capacity);
+                rawDates = Arrays.copyOf(rawDates, capacity);
+            }
+            int row = size++;
+            ids[row] = person.getId();
+            ages[row] = person.getAge();
+            if (person.getName() == null) {
+                nullNames.set(row);
+            } else {
+                names[row] = person.getName();
+            }
+            if (person.getScore() == null) {
+                nullScores.set(row);
+            } else {
+                rawScores[row] = person.getScore();
+                BigDecimal score = person.getScore().stripTrailingZeros();
+                int scale = Math.max(0, score.scale());
+                BigInteger unscaled = score.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue();
+                if (scale > MAX_SCALE || unscaled.bitLength() >= Long.SIZE) {
+                    encodedScores = false;
+                } else {
+                    scores[row] = unscaled.longValue();
+                    scoreScales[row] = (byte) scale;
+                    maxScale = Math.max(maxScale, scale);
+                }
+            }
+            if (person.getDate() == null) {
+                nullDates.set(row);
+            } else {
+                rawDates[row] = person.getDate();
+                try {
+                    dates[row] = encode(person.getDate());
+                } catch (ArithmeticException e) {
+                    encodedDates = false;
+                }
+            }
+            if (person.getEnrolled() != null) {
+                (person.getEnrolled() ? trues : falses).set(row);
+            }
+            return this;
+        }
+
+        ColumnarSnapshot build() {
+            long[] scaledScores = encodedScores ? scaleScores() : null;
+
+            String[] dictionary = Arrays.stream(names, 0, size).filter(name -> name != null).distinct().sorted().toArray(String[]::new);
+            Map<String, Integer> codes = new HashMap<>(dictionary.length * 2);
+            for (int i = 0; i < dictionary.length; i++) {
+                codes.put(dictionary[i], i);
+            }
+            long[] nameCodes = new long[size];
+            for (int row = 0; row < size; row++) {
+                if (!nullNames.get(row)) {
+                    nameCodes[row] = codes.get(names[row]);
+                }
+            }
+
+            SortedColumn idColumn = new SortedColumn(Arrays.copyOf(ids, size), new BitSet(), integral(Long::valueOf));
+            Map<String, Column> columns = Map.of(
+                    "id", idColumn,
+                    "age", new SortedColumn(Arrays.copyOf(ages, size), new BitSet(), integral(value -> (int) value)),
+                    "name", new SortedColumn(nameCodes, nullNames, dictionary(dictionary)),
+                    "score", scaledScores != null ? new SortedColumn(scaledScores, nullScores, decimal(maxScale))
+                            : new ComparableColumn(comparables(rawScores)),
+                    "date", encodedDates ? new SortedColumn(Arrays.copyOf(dates, size), nullDates, dates())
+                            : new ComparableColumn(comparables(rawDates)),
+                    "enrolled", new BooleanColumn(trues, falses, size));
+            return new ColumnarSnapshot(size, idColumn, columns);
+        }
+
+        /**
+         * Scores scaled to the largest scale, {@code null} if one of them then overflows.
+         */
+        private long[] scaleScores() {
+            long[] scaled = new long[size];
+            try {
+                for (int row = 0; row < size; row++) {
+                    if (!nullScores.get(row)) {
+                        scaled[row] = Math.multiplyExact(scores[row], LONG_POWERS_OF_TEN[maxScale - scoreScales[row]]);
+                    }
+                }
+                return scaled;
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Comparable<Object>[] comparables(Object[] values) {
+            return (Comparable<Object>[]) Arrays.copyOf(values, size, Comparable[].class);
+        }
+    }
+
+    static ColumnarSnapshot of(List<Person> persons) {
+        Builder builder = builder();
+        persons.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static long encode(LocalDateTime date) {
+        return Math.addExact(Math.multiplyExact(date.toEpochSecond(ZoneOffset.UTC), NANOS), date.getNano());
+    }
+
+    private interface Decoder {
+        Object decode(long value);
+    }
+
+    private static SortedColumn.Codec integral(Decoder decoder) {
+        return new SortedColumn.Codec() {
+            @Override
+            public long floor(Object value) {
+                return ((Number) value).longValue();
+            }
+
+            @Override
+            public long ceil(Object value) {
+                return ((Number) value).longValue();
+            }
+
+            @Override
+            public Object decode(long encoded) {
+                return decoder.decode(encoded);
+            }
+        };
+    }
+
+    private static SortedColumn.Codec decimal(int scale) {
+        return new SortedColumn.Codec() {
+            @Override
+            public long floor(Object value) {
+                return scaled((BigDecimal) value, RoundingMode.FLOOR);
+            }
+
+            @Override
+            public long ceil(Object value) {
+                return scaled((BigDecimal) value, RoundingMode.CEILING);
+            }
+
+            private long scaled(BigDecimal value, RoundingMode rounding) {
+                BigDecimal scaled = value.setScale(scale, rounding);
+                if (scaled.unscaledValue().bitLength() >= Long.SIZE) {
+                    return scaled.signum() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+                }
+                return scaled.unscaledValue().longValue();
+            }
+
+            @Override
+            public Object decode(long encoded) {
+                return BigDecimal.valueOf(encoded, scale);
+            }
+        };
+    }
+
+    private static SortedColumn.Codec dates() {
+        return new SortedColumn.Codec() {
+            @Override
+            public long floor(Object value) {
+                return clamped((LocalDateTime) value);
+            }
+
+            @Override
+            public long ceil(Object value) {
+                return clamped((LocalDateTime) value);
+            }
+
+            /**
+             * Dates out of the encodable range lie beyond every stored date.
+             */
+            private long clamped(LocalDateTime value) {
+                try {
+                    return encode(value);
+                } catch (ArithmeticException e) {
+                    return value.getYear() < 1970 ? Long.MIN_VALUE : Long.MAX_VALUE;
+                }
+            }
+
+            @Override
+            public Object decode(long encoded) {
+                return LocalDateTime.ofEpochSecond(Math.floorDiv(encoded, NANOS), (int) Math.floorMod(encoded, NANOS), ZoneOffset.UTC);
+            }
+        };
+    }
+
+    private static SortedColumn.Codec dictionary(String[] dictionary) {
+        return new SortedColumn.Codec() {
+            @Override
+            public long floor(Object value) {
+                int index = Arrays.binarySearch(dictionary, (String) value);
+                return index >= 0 ? index : -index - 2;
+            }
+
+            @Override
+            public long ceil(Object value) {
+                int index = Arrays.binarySearch(dictionary, (String) value);
+                return index >= 0 ? index : -index - 1;
+            }
+
+            @Override
+            public Object decode(long encoded) {
+                return dictionary[(int) encoded];
+            }
+        };
+    }
+}
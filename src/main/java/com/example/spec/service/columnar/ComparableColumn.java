@@ -0,0 +1,75 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.filter.Operator;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntPredicate;
+
+/**
+ * Nullable column of the original values, scanned row by row. Used in place of a
+ * {@link SortedColumn} when some value has no {@code long} encoding, such as a score with more
+ * significant digits than a {@code long} holds at the common scale or a date too far from the
+ * epoch. Values compare with {@link Comparable#compareTo}, so decimals compare by value.
+ */
+final class ComparableColumn implements Column {
+
+    private final Comparable<Object>[] values;
+
+    ComparableColumn(Comparable<Object>[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public BitSet equalTo(Object value) {
+        return scan(matcher(Operator.EQ, value));
+    }
+
+    @Override
+    public BitSet compare(Operator operator, Object bound) {
+        return scan(matcher(operator, bound));
+    }
+
+    @Override
+    public IntPredicate matcher(Operator operator, Object value) {
+        if (value == null) {
+            return operator == Operator.EQ ? row -> values[row] == null : row -> values[row] != null;
+        }
+        if (operator.isMultiValued()) {
+            Collection<?> candidates = (Collection<?>) value;
+            IntPredicate in = row -> values[row] != null && candidates.stream().anyMatch(candidate -> candidate != null && values[row].compareTo(candidate) == 0);
+            return operator == Operator.IN ? in
+                    : candidates.isEmpty() ? row -> true
+                    : row -> values[row] != null && !in.test(row);
+        }
+        return switch (operator) {
+            case EQ -> row -> values[row] != null && values[row].compareTo(value) == 0;
+            case NOT_EQ -> row -> values[row] != null && values[row].compareTo(value) != 0;
+            case GT -> row -> values[row] != null && values[row].compareTo(value) > 0;
+            case GE -> row -> values[row] != null && values[row].compareTo(value) >= 0;
+            case LT -> row -> values[row] != null && values[row].compareTo(value) < 0;
+            case LE -> row -> values[row] != null && values[row].compareTo(value) <= 0;
+            default -> throw new IllegalArgumentException("Not a single-valued operator: " + operator);
+        };
+    }
+
+    @Override
+    public BitSet nulls() {
+        return scan(row -> values[row] == null);
+    }
+
+    @Override
+    public Object get(int row) {
+        return values[row];
+    }
+
+    private BitSet scan(IntPredicate matcher) {
+        BitSet bits = new BitSet(values.length);
+        for (int row = 0; row < values.length; row++) {
+            if (matcher.test(row)) {
+                bits.set(row);
+            }
+        }
+        return bits;
+    }
+}
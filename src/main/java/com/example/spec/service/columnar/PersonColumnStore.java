@@ -0,0 +1,277 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.EntityCopier;
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.filter.InMemoryFilterCompiler;
+import com.example.spec.service.stream.FilterResultStreamer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * In-process columnar copy of the {@code Person} table answering filters without a database
+ * round trip. Enabled with {@code spec.filter.columnar.enabled=true}.
+ * <p>
+ * The table is loaded into an immutable {@link ColumnarSnapshot} on startup and by
+ * {@link #refresh()}. Persons saved or deleted through JPA are reported by the
+ * {@link PersonColumnStoreListener} and applied incrementally with {@link #upsert(Person)} and
+ * {@link #remove(Long)} when their transaction commits: the replaced snapshot rows are tombstoned
+ * and the new versions kept in a small delta that is filtered row by row, until it outgrows
+ * {@code spec.filter.columnar.compaction-threshold} and is merged into a new snapshot. Bulk
+ * statements, which bypass entity listeners, reload the whole store after their commit through
+ * {@link #refreshAfterCommit()}; writes made outside this application are only seen after a
+ * refresh. Readers never lock; they work on whichever state was current when the query started.
+ * Reloads scan the table without the lock either: changes applied meanwhile are recorded and
+ * replayed onto the new snapshot when it replaces the state.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "spec.filter.columnar", name = "enabled", havingValue = "true")
+public class PersonColumnStore {
+
+    private final FilterResultStreamer resultStreamer;
+
+    private final InMemoryFilterCompiler inMemoryFilterCompiler;
+
+    private final FilterProperties properties;
+
+    private final EntityCopier copier;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate afterCommitTemplate;
+
+    private volatile State state = new State(ColumnarSnapshot.builder().build(), new BitSet(), Map.of());
+
+    /**
+     * Changes applied since each reload in progress started, by id; guarded by {@code this}.
+     */
+    private final Set<Map<Long, Person>> reloads = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    @Autowired
+    public PersonColumnStore(FilterResultStreamer resultStreamer, InMemoryFilterCompiler inMemoryFilterCompiler,
+                             FilterProperties properties, EntityCopier copier,
+                             PlatformTransactionManager transactionManager) {
+        this.resultStreamer = resultStreamer;
+        this.inMemoryFilterCompiler = inMemoryFilterCompiler;
+        this.properties = properties;
+        this.copier = copier;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.afterCommitTemplate = new TransactionTemplate(transactionManager);
+        this.afterCommitTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.afterCommitTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Reloads the snapshot from the database, discarding the delta.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        reload(transactionTemplate);
+    }
+
+    /**
+     * The committed transaction's resources are still bound after its commit, so reloading then
+     * needs a transaction of its own.
+     */
+    private void reload(TransactionTemplate template) {
+        long start = System.nanoTime();
+        Map<Long, Person> applied = new HashMap<>();
+        synchronized (this) {
+            reloads.add(applied);
+        }
+        ColumnarSnapshot.Builder builder = ColumnarSnapshot.builder();
+        try {
+            template.executeWithoutResult(status -> {
+                try (Stream<Person> persons = resultStreamer.stream(Person.class, new CompiledFilter("TRUE", FilterNode.Constant.TRUE))) {
+                    persons.forEach(builder::add);
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                reloads.remove(applied);
+            }
+            throw e;
+        }
+        replace(builder.build(), applied);
+        log.info("Loaded {} persons into the column store in {} ms", state.snapshot().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Replaces the state by a reloaded snapshot, replaying the changes applied while it was
+     * loaded; changes the snapshot already contains are applied again, which is harmless.
+     */
+    private synchronized void replace(ColumnarSnapshot snapshot, Map<Long, Person> applied) {
+        reloads.remove(applied);
+        state = new State(snapshot, new BitSet(), Map.of());
+        applied.forEach(this::put);
+    }
+
+    /**
+     * Reloads the store once the current transaction commits, or at once outside of
+     * transactions.
+     */
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload(afterCommitTemplate);
+            }
+        });
+    }
+
+    /**
+     * Records a saved or deleted person, applied when its transaction commits or at once outside
+     * of transactions. The person is copied, later changes to the argument are not seen.
+     */
+    void changed(Person person, boolean removed) {
+        Person state = removed ? null : copier.copyOf(person);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Collections.singletonMap(person.getId(), state));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Long, Person> changes = (Map<Long, Person>) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Map<Long, Person> committed = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, committed);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PersonColumnStore.this);
+                    if (status == STATUS_COMMITTED) {
+                        apply(committed);
+                    }
+                }
+            });
+            changes = committed;
+        }
+        changes.put(person.getId(), state);
+    }
+
+    private synchronized void apply(Map<Long, Person> changes) {
+        changes.forEach(this::update);
+    }
+
+    /**
+     * Records a created or updated person. The person is copied, later changes to the argument
+     * are not seen.
+     */
+    public synchronized void upsert(Person person) {
+        update(person.getId(), copier.copyOf(person));
+    }
+
+    public synchronized void remove(Long id) {
+        update(id, null);
+    }
+
+    /**
+     * Applies the new version of a person, {@code null} once removed, and records it for the
+     * reloads in progress.
+     */
+    private void update(Long id, Person person) {
+        reloads.forEach(applied -> applied.put(id, person));
+        put(id, person);
+    }
+
+    private void put(Long id, Person person) {
+        Map<Long, Person> delta = new HashMap<>(state.delta());
+        if (person == null) {
+            delta.remove(id);
+        } else {
+            delta.put(id, person);
+        }
+        apply(id, delta);
+    }
+
+    /**
+     * Number of persons currently held.
+     */
+    public int size() {
+        State current = state;
+        return current.snapshot().size() - current.tombstones().cardinality() + current.delta().size();
+    }
+
+    public List<Person> query(CompiledFilter filter) {
+        State current = state;
+        if (filter.matchesNothing()) {
+            return List.of();
+        }
+        BitSet rows = current.snapshot().evaluate(filter.root());
+        rows.andNot(current.tombstones());
+
+        List<Person> result = new ArrayList<>(rows.cardinality() + current.delta().size());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            result.add(current.snapshot().materialize(row));
+        }
+        if (!current.delta().isEmpty()) {
+            Predicate<Person> predicate = inMemoryFilterCompiler.compile(Person.class, filter);
+            for (Person person : current.delta().values()) {
+                if (predicate.test(person)) {
+                    result.add(copier.copyOf(person));
+                }
+            }
+        }
+        return result;
+    }
+
+    private void apply(Long id, Map<Long, Person> delta) {
+        BitSet tombstones = state.tombstones();
+        int row = state.snapshot().rowOf(id);
+        if (row >= 0 && !tombstones.get(row)) {
+            tombstones = (BitSet) tombstones.clone();
+            tombstones.set(row);
+        }
+        state = new State(state.snapshot(), tombstones, Map.copyOf(delta));
+        if (delta.size() > properties.getColumnar().getCompactionThreshold()) {
+            compact();
+        }
+    }
+
+    /**
+     * Merges the delta into a new snapshot without going back to the database.
+     */
+    private void compact() {
+        State current = state;
+        ColumnarSnapshot.Builder builder = ColumnarSnapshot.builder();
+        for (int row = 0; row < current.snapshot().size(); row++) {
+            if (!current.tombstones().get(row)) {
+                builder.add(current.snapshot().materialize(row));
+            }
+        }
+        current.delta().values().forEach(builder::add);
+        state = new State(builder.build(), new BitSet(), Map.of());
+        log.debug("Compacted column store to {} persons", state.snapshot().size());
+    }
+
+    private record State(ColumnarSnapshot snapshot, BitSet tombstones, Map<Long, Person> delta) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.entity.Person;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener reporting saved and deleted persons, including those saved through
+ * {@code PersonRepository}, to the {@link PersonColumnStore} when it is enabled.
+ * <p>
+ * Instantiated by Spring through Hibernate's bean container; the store is looked up lazily as it
+ * depends on the entity manager factory.
+ */
+@RequiredArgsConstructor
+@Component
+public class PersonColumnStoreListener {
+
+    private final ObjectProvider<PersonColumnStore> columnStore;
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Person person) {
+        columnStore.ifAvailable(store -> store.changed(person, false));
+    }
+
+    @PostRemove
+    public void removed(Person person) {
+        columnStore.ifAvailable(store -> store.changed(person, true));
+    }
+}
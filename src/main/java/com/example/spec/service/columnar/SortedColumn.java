@@ -0,0 +1,194 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.filter.Operator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntPredicate;
+
+/**
+ * Nullable column stored as primitive {@code long}s with a sorted index. Equality and range
+ * predicates are answered by binary search over the sorted values.
+ */
+final class SortedColumn implements Column {
+
+    /**
+     * Maps column values to their {@code long} encoding. An encoding preserves order; a value with
+     * no exact encoding (for example a decimal with more digits than the column scale) lies
+     * strictly between {@link #floor} and {@link #ceil}, which are then adjacent encodings.
+     */
+    interface Codec {
+
+        long floor(Object value);
+
+        long ceil(Object value);
+
+        Object decode(long encoded);
+    }
+
+    private final long[] values;
+
+    private final BitSet nulls;
+
+    private final Codec codec;
+
+    private final long[] sorted;
+
+    private final int[] rows;
+
+    SortedColumn(long[] values, BitSet nulls, Codec codec) {
+        this.values = values;
+        this.nulls = nulls;
+        this.codec = codec;
+
+        int count = values.length - nulls.cardinality();
+        int[] order = new int[count];
+        for (int row = 0, i = 0; row < values.length; row++) {
+            if (!nulls.get(row)) {
+                order[i++] = row;
+            }
+        }
+        this.rows = sortByValue(order, values);
+        this.sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = values[rows[i]];
+        }
+    }
+
+    @Override
+    public BitSet equalTo(Object value) {
+        long floor = codec.floor(value);
+        if (floor != codec.ceil(value)) {
+            return new BitSet();
+        }
+        return rows(lowerBound(floor), upperBound(floor));
+    }
+
+    @Override
+    public BitSet compare(Operator operator, Object bound) {
+        long floor = codec.floor(bound);
+        long ceil = codec.ceil(bound);
+        return switch (operator) {
+            case GT -> rows(upperBound(floor), sorted.length);
+            case GE -> rows(lowerBound(ceil), sorted.length);
+            case LT -> rows(0, lowerBound(ceil));
+            case LE -> rows(0, upperBound(floor));
+            default -> throw new IllegalArgumentException("Not a range operator: " + operator);
+        };
+    }
+
+    @Override
+    public IntPredicate matcher(Operator operator, Object value) {
+        if (value == null) {
+            return operator == Operator.EQ ? nulls::get : row -> !nulls.get(row);
+        }
+        if (operator.isMultiValued()) {
+            long[] keys = ((Collection<?>) value).stream()
+                    .filter(candidate -> codec.floor(candidate) == codec.ceil(candidate))
+                    .mapToLong(codec::floor)
+                    .sorted()
+                    .toArray();
+            return operator == Operator.IN
+                    ? row -> !nulls.get(row) && Arrays.binarySearch(keys, values[row]) >= 0
+                    : ((Collection<?>) value).isEmpty()
+                    ? row -> true
+                    : row -> !nulls.get(row) && Arrays.binarySearch(keys, values[row]) < 0;
+        }
+        long floor = codec.floor(value);
+        long ceil = codec.ceil(value);
+        boolean exact = floor == ceil;
+        return switch (operator) {
+            case EQ -> row -> exact && !nulls.get(row) && values[row] == floor;
+            case NOT_EQ -> row -> !nulls.get(row) && (!exact || values[row] != floor);
+            case GT -> row -> !nulls.get(row) && values[row] > floor;
+            case GE -> row -> !nulls.get(row) && values[row] >= ceil;
+            case LT -> row -> !nulls.get(row) && values[row] < ceil;
+            case LE -> row -> !nulls.get(row) && values[row] <= floor;
+            default -> throw new IllegalArgumentException("Not a single-valued operator: " + operator);
+        };
+    }
+
+    @Override
+    public BitSet nulls() {
+        return (BitSet) nulls.clone();
+    }
+
+    @Override
+    public Object get(int row) {
+        return nulls.get(row) ? null : codec.decode(values[row]);
+    }
+
+    private BitSet rows(int from, int to) {
+        int last = -1;
+        for (int i = from; i < to; i++) {
+            last = Math.max(last, rows[i]);
+        }
+        BitSet bits = new BitSet(last + 1);
+        for (int i = from; i < to; i++) {
+            bits.set(rows[i]);
+        }
+        return bits;
+    }
+
+    /**
+     * Index of the first sorted value not less than {@code key}.
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the first sorted value greater than {@code key}.
+     */
+    private int upperBound(long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Stable bottom-up merge sort of row numbers by their value.
+     */
+    private static int[] sortByValue(int[] order, long[] values) {
+        int[] source = order;
+        int[] target = new int[order.length];
+        for (int width = 1; width < source.length; width <<= 1) {
+            for (int low = 0; low < source.length; low += width << 1) {
+                int middle = Math.min(low + width, source.length);
+                int high = Math.min(low + (width << 1), source.length);
+                int left = low;
+                int right = middle;
+                for (int i = low; i < high; i++) {
+                    if (left < middle && (right >= high || values[source[left]] <= values[source[right]])) {
+                        target[i] = source[left++];
+                    } else {
+                        target[i] = source[right++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        return source;
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.spec.service.config;
+
+import com.example.spec.service.parallel.PartitionBoundaries;
+import com.example.spec.service.readonly.ReadMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tuning knobs of the filter pipeline, bound from {@code spec.filter.*}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spec.filter")
+public class FilterProperties {
+
+    /**
+     * Maximum number of distinct filter shapes whose compiled plans are kept.
+     */
+    private int planCacheSize = 1024;
+
+    /**
+     * Whether compiled filters are simplified by the boolean optimizer.
+     */
+    private boolean optimize = true;
+
+    /**
+     * Largest {@code in} list bound value by value (padded to a power of two); larger lists are
+     * bound as one array parameter or split into chunks of this size.
+     */
+    private int inListPaddingThreshold = 256;
+
+    /**
+     * Upper bound of the page size accepted by keyset pagination.
+     */
+    private int maxPageSize = 10_000;
+
+    /**
+     * JDBC fetch size of streamed filter results.
+     */
+    private int streamFetchSize = 1000;
+
+    /**
+     * Most distinct conditions selected as membership columns by one batch query; larger batches
+     * are split (PostgreSQL allows at most 1664 select columns).
+     */
+    private int batchMaxConditions = 1000;
+
+    /**
+     * Filter queries taking longer are logged by the {@code spec.filter.slow} logger.
+     */
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    /**
+     * How filter queries load entities; {@link ReadMode#MANAGED} keeps the entities managed by the
+     * persistence context of the caller.
+     */
+    private ReadMode readMode = ReadMode.MANAGED;
+
+    /**
+     * In-process columnar copy of the person table.
+     */
+    private final Columnar columnar = new Columnar();
+
+    /**
+     * Cache of {@code getAllPersons} results.
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Asynchronous filter queries.
+     */
+    private final Async async = new Async();
+
+    /**
+     * Limits rejecting or queueing expensive filters before any SQL is generated.
+     */
+    private final Admission admission = new Admission();
+
+    /**
+     * Filter usage statistics and the index advisor.
+     */
+    private final Usage usage = new Usage();
+
+    /**
+     * Read replica serving stateless filter queries.
+     */
+    private final Replica replica = new Replica();
+
+    /**
+     * Parallel filter queries partitioned by id ranges.
+     */
+    private final Parallel parallel = new Parallel();
+
+    /**
+     * Filter explanations.
+     */
+    private final Explain explain = new Explain();
+
+    @Data
+    public static class Columnar {
+
+        /**
+         * Whether the column store is loaded and available to queries.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of incrementally applied changes after which the store is rebuilt.
+         */
+        private int compactionThreshold = 10_000;
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * Whether filter results are cached.
+         */
+        private boolean enabled;
+
+        /**
+         * Upper bound of the cached rows, counting one extra per cached filter.
+         */
+        private long maxWeight = 100_000;
+
+        /**
+         * Time after which a cached result is reloaded.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Async {
+
+        /**
+         * Most asynchronous queries running at once; 0 uses the size of the connection pool.
+         */
+        private int maxConcurrency = 0;
+
+        /**
+         * Most asynchronous queries waiting for a thread when they run on platform threads
+         * (Java 17); further queries fail at once with a
+         * {@link java.util.concurrent.RejectedExecutionException}.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Deadline of asynchronous queries that do not specify one.
+         */
+        private Duration defaultTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Admission {
+
+        /**
+         * Deepest nesting of logic operations accepted while parsing.
+         */
+        private int maxDepth = 32;
+
+        /**
+         * Most predicates in one filter.
+         */
+        private int maxPredicates = 1024;
+
+        /**
+         * Most values of a single {@code in}/{@code !in} predicate.
+         */
+        private int maxInValues = 100_000;
+
+        /**
+         * Most {@code !eq}/{@code !in} predicates in one filter.
+         */
+        private int maxNegations = 64;
+
+        /**
+         * Filters with a higher cost score are rejected.
+         */
+        private double maxScore = 50_000;
+
+        /**
+         * Filters with a higher cost score wait for one of {@link #queueConcurrency} slots.
+         */
+        private double queueScore = 5_000;
+
+        /**
+         * Most expensive filters running at once.
+         */
+        private int queueConcurrency = 2;
+
+        /**
+         * Longest wait for a slot before an expensive filter is rejected.
+         */
+        private Duration queueTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Usage {
+
+        /**
+         * Whether the fields, operators and latencies of executed filters are collected.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Most distinct predicates and field sets tracked each.
+         */
+        private int maxTrackedKeys = 1000;
+
+        /**
+         * Most columns of an advised composite index.
+         */
+        private int maxIndexColumns = 3;
+    }
+
+    @Data
+    public static class Replica {
+
+        /**
+         * JDBC URL of the replica; stateless queries use the primary database when unset.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+
+    @Data
+    public static class Parallel {
+
+        /**
+         * Most partitions running at once; 0 uses half the size of the connection pool, leaving
+         * connections to other work.
+         */
+        private int maxConcurrency = 0;
+
+        /**
+         * Most id ranges one query is split into.
+         */
+        private int maxPartitions = 64;
+
+        /**
+         * Partition latency the number of partitions adapts to: queries whose partitions take
+         * longer are split further next time, queries whose partitions take less than a quarter
+         * of it are split less.
+         */
+        private Duration targetPartitionLatency = Duration.ofMillis(250);
+
+        /**
+         * How the id keyspace is split.
+         */
+        private PartitionBoundaries boundaries = PartitionBoundaries.MIN_MAX;
+    }
+
+    @Data
+    public static class Explain {
+
+        /**
+         * Whether filters can be explained. Recording bind parameters wraps every connection of
+         * the persistence unit, so it costs on every statement.
+         */
+        private boolean enabled = false;
+    }
+}
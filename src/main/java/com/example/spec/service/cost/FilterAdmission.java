@@ -0,0 +1,98 @@
+package com.example.spec.service.cost;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.exception.FilterRejectedException;
+import com.example.spec.service.exception.FilterRejectedException.Limit;
+import com.example.spec.service.filter.CompiledFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admission control of filters by their {@link FilterCost}, configured by
+ * {@code spec.filter.admission}.
+ * <p>
+ * {@link #check} rejects filters exceeding a hard limit right after compilation.
+ * {@link #execute} runs filters scoring above {@code queue-score} in one of
+ * {@code queue-concurrency} slots, so a burst of expensive filters queues instead of
+ * monopolizing the database, and rejects them when no slot frees up within {@code queue-timeout}.
+ * Nesting depth is limited while parsing, see {@link com.example.spec.service.filter.FilterCompiler}.
+ */
+@Slf4j
+@Component
+public class FilterAdmission {
+
+    private final FilterCostEstimator estimator;
+
+    private final FilterProperties properties;
+
+    private final Semaphore expensiveSlots;
+
+    public FilterAdmission(FilterCostEstimator estimator, FilterProperties properties) {
+        this.estimator = estimator;
+        this.properties = properties;
+        this.expensiveSlots = new Semaphore(properties.getAdmission().getQueueConcurrency(), true);
+    }
+
+    /**
+     * Estimates the filter and rejects it if it exceeds a limit.
+     *
+     * @throws FilterRejectedException naming the exceeded limit
+     */
+    public FilterCost check(Class<?> entityClass, CompiledFilter filter) {
+        FilterProperties.Admission limits = properties.getAdmission();
+        FilterCost cost = estimator.estimate(entityClass, filter);
+        reject(Limit.DEPTH, cost.depth(), limits.getMaxDepth());
+        reject(Limit.PREDICATES, cost.predicates(), limits.getMaxPredicates());
+        reject(Limit.IN_VALUES, cost.largestInList(), limits.getMaxInValues());
+        reject(Limit.NEGATIONS, cost.negations(), limits.getMaxNegations());
+        reject(Limit.SCORE, cost.score(), limits.getMaxScore());
+        return cost;
+    }
+
+    /**
+     * Runs the query of a filter that passed {@link #check}, queueing it first if it is expensive.
+     * The cost carried by the filter is reused; filters without one are estimated again.
+     */
+    public <R> R execute(Class<?> entityClass, CompiledFilter filter, Supplier<R> query) {
+        FilterProperties.Admission limits = properties.getAdmission();
+        double score = (filter.cost() != null ? filter.cost() : estimator.estimate(entityClass, filter)).score();
+        if (score <= limits.getQueueScore()) {
+            return query.get();
+        }
+        long start = System.nanoTime();
+        try {
+            if (!expensiveSlots.tryAcquire(limits.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new FilterRejectedException(Limit.QUEUE, (System.nanoTime() - start) / 1e9,
+                        limits.getQueueTimeout().toMillis() / 1e3);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FilterException("Interrupted while queued", e);
+        }
+        try {
+            log.debug("Running expensive filter scoring {} after {} ms in queue: {}", score,
+                    (System.nanoTime() - start) / 1_000_000, filter.shape());
+            return query.get();
+        } finally {
+            expensiveSlots.release();
+        }
+    }
+
+    /**
+     * Number of expensive filters currently running.
+     */
+    public int runningExpensive() {
+        return properties.getAdmission().getQueueConcurrency() - expensiveSlots.availablePermits();
+    }
+
+    private static void reject(Limit limit, double actual, double allowed) {
+        if (actual > allowed) {
+            throw new FilterRejectedException(limit, actual, allowed);
+        }
+    }
+}
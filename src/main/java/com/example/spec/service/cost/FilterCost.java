@@ -0,0 +1,19 @@
+package com.example.spec.service.cost;
+
+/**
+ * Estimated cost of a compiled filter, see {@link FilterCostEstimator}.
+ *
+ * @param depth              nesting depth of logic operations, 0 for a single predicate
+ * @param predicates         number of predicates
+ * @param largestInList      most values of a single {@code in}/{@code !in} predicate
+ * @param negations          number of {@code !eq}/{@code !in} predicates
+ * @param unindexedPredicates number of predicates that cannot be answered from an index
+ * @param score              overall cost, comparable between filters
+ */
+public record FilterCost(int depth,
+                         int predicates,
+                         int largestInList,
+                         int negations,
+                         int unindexedPredicates,
+                         double score) {
+}
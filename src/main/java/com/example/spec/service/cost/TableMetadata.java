@@ -0,0 +1,121 @@
+package com.example.spec.service.cost;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.SelectableMapping;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Table, columns and indexes of entities, combining the Hibernate mapping with the JDBC metadata
+ * of the database. Read once per entity; {@link #refresh()} rereads after DDL.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class TableMetadata {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final DataSource dataSource;
+
+    private final Map<Class<?>, Table> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Mapped table of an entity.
+     *
+     * @param name    table name without schema
+     * @param columns column of every basic field, keyed by field
+     * @param indexes fields of every index, in index column order; indexes on unmapped columns
+     *                or expressions are left out
+     */
+    public record Table(String name, Map<String, String> columns, List<List<String>> indexes) {
+
+        /**
+         * Fields whose column leads an index.
+         */
+        public Set<String> indexedFields() {
+            return indexes.stream().map(index -> index.get(0)).collect(Collectors.toUnmodifiableSet());
+        }
+    }
+
+    public Table table(Class<?> entityClass) {
+        return tables.computeIfAbsent(entityClass, this::load);
+    }
+
+    public void refresh() {
+        tables.clear();
+    }
+
+    private Table load(Class<?> entityClass) {
+        EntityMappingType entity = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(entityClass);
+        Map<String, String> columns = new LinkedHashMap<>();
+        String table = entity.getEntityName();
+        if (entity.getIdentifierMapping() instanceof SelectableMapping id) {
+            columns.put(entity.getIdentifierMapping().getAttributeName(), id.getSelectionExpression());
+            table = id.getContainingTableExpression();
+            table = table.substring(table.lastIndexOf('.') + 1);
+        }
+        for (int i = 0; i < entity.getNumberOfAttributeMappings(); i++) {
+            AttributeMapping attribute = entity.getAttributeMapping(i);
+            if (attribute instanceof SelectableMapping column) {
+                columns.put(attribute.getAttributeName(), column.getSelectionExpression());
+            }
+        }
+        Map<String, String> fieldsByColumn = new HashMap<>();
+        columns.forEach((field, column) -> fieldsByColumn.put(column.toLowerCase(Locale.ROOT), field));
+
+        Map<String, TreeMap<Short, String>> indexColumns = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+                    : metaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT)
+                    : table;
+            try (ResultSet indexes = metaData.getIndexInfo(null, null, name, false, true)) {
+                while (indexes.next()) {
+                    String index = indexes.getString("INDEX_NAME");
+                    String column = indexes.getString("COLUMN_NAME");
+                    if (index != null) {
+                        String field = column == null ? null : fieldsByColumn.get(column.toLowerCase(Locale.ROOT));
+                        indexColumns.computeIfAbsent(index, key -> new TreeMap<>())
+                                .put(indexes.getShort("ORDINAL_POSITION"), field == null ? "" : field);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Cannot read the indexes of " + table, e);
+        }
+
+        List<List<String>> indexes = new ArrayList<>();
+        for (TreeMap<Short, String> index : indexColumns.values()) {
+            List<String> fields = List.copyOf(index.values());
+            if (!fields.contains("")) {
+                indexes.add(fields);
+            }
+        }
+        log.debug("Indexes of {}: {}", table, indexes);
+        return new Table(table, Map.copyOf(columns), List.copyOf(indexes));
+    }
+}
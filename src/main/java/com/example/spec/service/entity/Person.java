@@ -1,6 +1,10 @@
 package com.example.spec.service.entity;
 
+import com.example.spec.service.cache.PersonCacheInvalidator;
+import com.example.spec.service.columnar.PersonColumnStoreListener;
+import com.example.spec.service.subscription.FilterSubscriptionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.Getter;
@@ -11,6 +15,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "t1")
+@EntityListeners({PersonCacheInvalidator.class, PersonColumnStoreListener.class, FilterSubscriptionListener.class})
 @Getter
 @Setter
 public class Person {
@@ -0,0 +1,71 @@
+package com.example.spec.service.exception;
+
+/**
+ * Thrown when a filter exceeds one of the admission limits of {@code spec.filter.admission}.
+ * Rejected filters never reach the database.
+ */
+public class FilterRejectedException extends FilterException {
+
+    public enum Limit {
+        DEPTH("max-depth"),
+        PREDICATES("max-predicates"),
+        IN_VALUES("max-in-values"),
+        NEGATIONS("max-negations"),
+        SCORE("max-score"),
+        QUEUE("queue-timeout");
+
+        private final String property;
+
+        Limit(String property) {
+            this.property = property;
+        }
+
+        /**
+         * Name of the {@code spec.filter.admission} property setting the limit.
+         */
+        public String property() {
+            return property;
+        }
+    }
+
+    private final Limit limit;
+
+    private final double actual;
+
+    private final double allowed;
+
+    public FilterRejectedException(Limit limit, double actual, double allowed) {
+        super("Filter rejected: %s is %s, the limit spec.filter.admission.%s is %s"
+                .formatted(describe(limit), format(actual), limit.property(), format(allowed)));
+        this.limit = limit;
+        this.actual = actual;
+        this.allowed = allowed;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    public double getActual() {
+        return actual;
+    }
+
+    public double getAllowed() {
+        return allowed;
+    }
+
+    private static String describe(Limit limit) {
+        return switch (limit) {
+            case DEPTH -> "nesting depth";
+            case PREDICATES -> "number of predicates";
+            case IN_VALUES -> "number of values of one in-list";
+            case NEGATIONS -> "number of negated predicates";
+            case SCORE -> "cost score";
+            case QUEUE -> "time queued for an expensive filter slot in seconds";
+        };
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : "%.2f".formatted(value);
+    }
+}
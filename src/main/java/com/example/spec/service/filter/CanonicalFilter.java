@@ -0,0 +1,38 @@
+package com.example.spec.service.filter;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Canonical text of a typed filter. Children of a junction and the values of an {@code in} list
+ * are sorted and numbers are rendered without trailing zeros, so filters differing only in field
+ * order, list order, formatting or {@code 22.0} vs {@code 22} render the same.
+ */
+public final class CanonicalFilter {
+
+    private CanonicalFilter() {
+    }
+
+    public static String render(FilterNode node) {
+        if (node instanceof FilterNode.Junction junction) {
+            List<String> children = junction.children().stream().map(CanonicalFilter::render).sorted().distinct().toList();
+            return junction.logic() + children.toString();
+        }
+        if (node instanceof FilterNode.Constant constant) {
+            return String.valueOf(constant.value());
+        }
+        FilterNode.Condition condition = (FilterNode.Condition) node;
+        String value = condition.value() instanceof Collection<?> values
+                ? values.stream().map(CanonicalFilter::literal).sorted().distinct().toList().toString()
+                : literal(condition.value());
+        return condition.field() + ' ' + condition.operator().token() + ' ' + value;
+    }
+
+    private static String literal(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.stripTrailingZeros().toPlainString();
+        }
+        return value instanceof String ? '"' + value.toString().replace("\"", "\\\"") + '"' : String.valueOf(value);
+    }
+}
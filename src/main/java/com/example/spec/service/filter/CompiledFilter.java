@@ -0,0 +1,42 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.cost.FilterCost;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Result of compiling a JSON filter: the canonical shape (fields, operators and structure with
+ * literals removed), the typed AST with literals bound, the translation of its value lists and its
+ * cost, once admission estimated it, {@code null} before.
+ */
+public record CompiledFilter(String shape, FilterNode root, InListTranslator inLists, FilterCost cost) {
+
+    public CompiledFilter(String shape, FilterNode root, InListTranslator inLists) {
+        this(shape, root, inLists, null);
+    }
+
+    public CompiledFilter(String shape, FilterNode root) {
+        this(shape, root, InListTranslator.PLAIN);
+    }
+
+    public CompiledFilter withCost(FilterCost cost) {
+        return new CompiledFilter(shape, root, inLists, cost);
+    }
+
+    /**
+     * Whether the optimizer proved that no row can match, so the database need not be queried.
+     */
+    public boolean matchesNothing() {
+        return FilterNode.Constant.FALSE.equals(root);
+    }
+
+    public <T> Specification<T> toSpecification() {
+        return (root, cq, cb) -> toPredicate(root, cb);
+    }
+
+    public Predicate toPredicate(Root<?> root, CriteriaBuilder cb) {
+        return FilterSpecifications.toPredicate(this.root, root, cb, inLists);
+    }
+}
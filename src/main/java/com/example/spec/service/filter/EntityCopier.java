@@ -0,0 +1,17 @@
+package com.example.spec.service.filter;
+
+/**
+ * Copies entities into new instances that no persistence context knows of, so they can be kept
+ * across transactions and modified without side effects. Values that are not entities are
+ * returned unchanged.
+ */
+@FunctionalInterface
+public interface EntityCopier {
+
+    Object copy(Object entity);
+
+    @SuppressWarnings("unchecked")
+    default <T> T copyOf(T entity) {
+        return (T) copy(entity);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.exception.FilterException;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Pre-resolved description of a filterable entity field: its java type, the coercers turning
+ * literals into values of that type, the operators allowed on it and an accessor reading the
+ * field from an entity instance ({@code null} if the entity has no getter for it).
+ */
+public record FieldDescriptor(String name,
+                              Class<?> javaType,
+                              Function<String, Object> coercer,
+                              ValueCoercers.TokenCoercer tokenCoercer,
+                              Set<Operator> operators,
+                              Function<Object, Object> accessor) {
+
+    public FieldDescriptor {
+        operators = Set.copyOf(operators);
+    }
+
+    public void checkOperator(Operator operator) {
+        if (!operators.contains(operator)) {
+            throw new FilterException("'%s' operation is not supported for field '%s' of type %s"
+                    .formatted(operator.token(), name, javaType.getSimpleName()));
+        }
+    }
+
+    public Function<Object, Object> requireAccessor() {
+        if (accessor == null) {
+            throw new FilterException("Field '%s' has no getter".formatted(name));
+        }
+        return accessor;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.exception.FilterException;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Field descriptors of all entities, built once at startup from the JPA metamodel. Unknown
+ * fields and illegal operator/type pairs are rejected while compiling a filter, before any
+ * criteria query is built.
+ */
+@Slf4j
+@Component
+public class FieldRegistry {
+
+    private static final Set<Operator> EQUALITY_OPERATORS = EnumSet.of(Operator.EQ, Operator.NOT_EQ, Operator.IN, Operator.NOT_IN);
+
+    private final Map<Class<?>, Map<String, FieldDescriptor>> descriptors;
+
+    public FieldRegistry(EntityManagerFactory entityManagerFactory) {
+        Map<Class<?>, Map<String, FieldDescriptor>> entities = new HashMap<>();
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            Map<String, FieldDescriptor> fields = new HashMap<>();
+            for (SingularAttribute<?, ?> attribute : entity.getSingularAttributes()) {
+                if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                    continue;
+                }
+                try {
+                    fields.put(attribute.getName(), describe(entity.getJavaType(), attribute.getName(), attribute.getJavaType()));
+                } catch (FilterException e) {
+                    log.debug("Field {}.{} is not filterable: {}", entity.getName(), attribute.getName(), e.getMessage());
+                }
+            }
+            entities.put(entity.getJavaType(), Map.copyOf(fields));
+            log.debug("Filterable fields of {}: {}", entity.getName(), fields.keySet());
+        }
+        this.descriptors = Map.copyOf(entities);
+    }
+
+    public FieldDescriptor descriptor(Class<?> entityClass, String field) {
+        Map<String, FieldDescriptor> fields = descriptors.get(entityClass);
+        if (fields == null) {
+            throw new FilterException("Entity '%s' is not managed".formatted(entityClass.getName()));
+        }
+        FieldDescriptor descriptor = fields.get(field);
+        if (descriptor == null) {
+            throw new FilterException("Unknown field '%s'".formatted(field));
+        }
+        return descriptor;
+    }
+
+    public FieldDescriptor descriptor(Class<?> entityClass, String field, Operator operator) {
+        FieldDescriptor descriptor = descriptor(entityClass, field);
+        descriptor.checkOperator(operator);
+        return descriptor;
+    }
+
+    public Map<String, FieldDescriptor> descriptors(Class<?> entityClass) {
+        return descriptors.getOrDefault(entityClass, Map.of());
+    }
+
+    private static FieldDescriptor describe(Class<?> entityClass, String name, Class<?> javaType) {
+        Class<?> type = ValueCoercers.boxed(javaType);
+        Set<Operator> operators = ValueCoercers.isComparable(type) ? EnumSet.allOf(Operator.class) : EQUALITY_OPERATORS;
+        return new FieldDescriptor(name, type, ValueCoercers.forType(type), ValueCoercers.forToken(type), operators,
+                accessor(entityClass, name, javaType));
+    }
+
+    /**
+     * Binds the getter of a field to a {@link Function} once, so reading it costs a direct call.
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> accessor(Class<?> entityClass, String name, Class<?> javaType) {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String prefix : javaType == boolean.class ? List.of("is", "get") : List.of("get")) {
+            try {
+                Method getter = entityClass.getMethod(prefix + suffix);
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle handle = lookup.unreflect(getter);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle,
+                        handle.type().wrap());
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            } catch (NoSuchMethodException e) {
+                // try the next prefix
+            } catch (Throwable e) {
+                log.warn("Cannot bind getter of {}.{}", entityClass.getSimpleName(), name, e);
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.exception.FilterRejectedException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles JSON filters into typed {@link FilterNode} trees.
+ * <p>
+ * Plans are cached by the canonical shape of the filter, so a repeated shape only walks the JSON
+ * to collect its literals and skips field resolution and validation. Raw JSON input can instead be
+ * compiled in a single streaming pass, see {@link StreamingFilterParser}. Bound filters are
+ * simplified by the {@link FilterOptimizer}; the shape always describes the filter as written.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class FilterCompiler {
+
+    private final FieldRegistry fieldRegistry;
+
+    private final FilterProperties properties;
+
+    private final InListTranslator inListTranslator;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final Map<String, FilterPlan> plans = new ConcurrentHashMap<>();
+
+    public CompiledFilter compile(Class<?> entityClass, JsonNode node) {
+        StringBuilder shape = new StringBuilder();
+        List<JsonNode> literals = new ArrayList<>();
+        appendShape(node, shape, literals, 0);
+
+        String key = entityClass.getName() + '#' + shape;
+        FilterPlan plan = plans.get(key);
+        if (plan == null) {
+            plan = new FilterPlan(buildTemplate(entityClass, node, new int[1]), literals.size());
+            if (plans.size() < properties.getPlanCacheSize()) {
+                plans.putIfAbsent(key, plan);
+            } else {
+                log.debug("Plan cache is full, shape is not cached: {}", shape);
+            }
+        }
+        return finish(shape.toString(), plan.bind(literals));
+    }
+
+    public CompiledFilter compile(Class<?> entityClass, InputStream json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return compile(entityClass, parser);
+        }
+    }
+
+    public CompiledFilter compile(Class<?> entityClass, byte[] json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return compile(entityClass, parser);
+        }
+    }
+
+    private CompiledFilter compile(Class<?> entityClass, JsonParser parser) throws IOException {
+        CompiledFilter parsed = new StreamingFilterParser(parser, fieldRegistry, entityClass, properties.getAdmission().getMaxDepth()).parse();
+        return finish(parsed.shape(), parsed.root());
+    }
+
+    private CompiledFilter finish(String shape, FilterNode root) {
+        return new CompiledFilter(shape, properties.isOptimize() ? FilterOptimizer.optimize(root) : root, inListTranslator);
+    }
+
+    public int cachedPlans() {
+        return plans.size();
+    }
+
+    /**
+     * Appends the shape of the filter and collects its literals. Being the first walk of the JSON,
+     * it also bounds the nesting depth before deeper recursions.
+     */
+    private void appendShape(JsonNode node, StringBuilder shape, List<JsonNode> literals, int depth) {
+        Map.Entry<String, JsonNode> entry = firstEntry(node);
+
+        if (Logic.isLogic(entry.getKey())) {
+            checkDepth(depth + 1, properties.getAdmission().getMaxDepth());
+            shape.append(entry.getKey()).append('(');
+            Iterator<JsonNode> children = logicChildren(node, entry);
+            while (children.hasNext()) {
+                appendShape(children.next(), shape, literals, depth + 1);
+                if (children.hasNext()) {
+                    shape.append(',');
+                }
+            }
+            shape.append(')');
+        } else {
+            Map.Entry<String, JsonNode> predicate = predicate(node, entry);
+            Operator operator = Operator.fromToken(predicate.getKey());
+            JsonNode value = predicate.getValue();
+            appendField(shape, entry.getKey()).append(' ').append(operator.token()).append(' ');
+
+            if (operator.isMultiValued()) {
+                if (!value.isArray()) {
+                    throw new FilterException("'%s' operation supported only for arrays".formatted(operator.token()));
+                }
+                shape.append("[?]");
+                literals.add(value);
+            } else if (value.isNull()) {
+                if (operator != Operator.EQ && operator != Operator.NOT_EQ) {
+                    throw new FilterException("'%s' operation does not support null".formatted(operator.token()));
+                }
+                shape.append("null");
+            } else if (value.isValueNode()) {
+                shape.append('?');
+                literals.add(value);
+            } else {
+                throw new FilterException("Single value is expected for '%s' operation".formatted(operator.token()));
+            }
+        }
+    }
+
+    /**
+     * Appends a field name to a shape, quoted unless it is a plain identifier: shapes key the plan
+     * cache, so a field name must not be able to spell out other conditions.
+     */
+    static StringBuilder appendField(StringBuilder shape, String field) {
+        if (isIdentifier(field)) {
+            return shape.append(field);
+        }
+        shape.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"' || c == '\\') {
+                shape.append('\\');
+            }
+            shape.append(c);
+        }
+        return shape.append('"');
+    }
+
+    private static boolean isIdentifier(String field) {
+        if (field.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && c != '$') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void checkDepth(int depth, int maxDepth) {
+        if (depth > maxDepth) {
+            throw new FilterRejectedException(FilterRejectedException.Limit.DEPTH, depth, maxDepth);
+        }
+    }
+
+    private FilterPlan.Template buildTemplate(Class<?> entityClass, JsonNode node, int[] nextSlot) {
+        Map.Entry<String, JsonNode> entry = firstEntry(node);
+
+        if (Logic.isLogic(entry.getKey())) {
+            List<FilterPlan.Template> children = new ArrayList<>();
+            Iterator<JsonNode> iterator = logicChildren(node, entry);
+            while (iterator.hasNext()) {
+                children.add(buildTemplate(entityClass, iterator.next(), nextSlot));
+            }
+            return new FilterPlan.JunctionTemplate(Logic.valueOf(entry.getKey()), List.copyOf(children));
+        }
+
+        String field = entry.getKey();
+        Map.Entry<String, JsonNode> predicate = predicate(node, entry);
+        Operator operator = Operator.fromToken(predicate.getKey());
+        FieldDescriptor descriptor = fieldRegistry.descriptor(entityClass, field, operator);
+
+        int slot = predicate.getValue().isNull() ? -1 : nextSlot[0]++;
+        return new FilterPlan.ConditionTemplate(operator, slot, descriptor);
+    }
+
+    private static Map.Entry<String, JsonNode> firstEntry(JsonNode node) {
+        if (!node.isObject()) {
+            throw new FilterException("Object is expected to describe predicate or logic operations!");
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        if (!fields.hasNext()) {
+            throw new FilterException("Empty object! Cannot determine predicate or logic operation");
+        }
+        return fields.next();
+    }
+
+    private static Iterator<JsonNode> logicChildren(JsonNode node, Map.Entry<String, JsonNode> entry) {
+        if (!entry.getValue().isArray()) {
+            throw new FilterException("Array is expected for logic operations: " + node);
+        }
+        if (entry.getValue().isEmpty()) {
+            throw new FilterException("Empty predicates list: " + node);
+        }
+        return entry.getValue().elements();
+    }
+
+    private static Map.Entry<String, JsonNode> predicate(JsonNode node, Map.Entry<String, JsonNode> entry) {
+        if (node.size() > 1) {
+            throw new FilterException("Only one predicate is allowed: " + node);
+        }
+        if (!entry.getValue().isObject()) {
+            throw new FilterException("Object is expected to describe predicate for field: " + entry.getKey());
+        }
+        if (entry.getValue().isEmpty()) {
+            throw new FilterException("No value(s) for predicate");
+        }
+        return entry.getValue().fields().next();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.spec.service.filter;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the SQL functions used by the filter translation, see {@link InListTranslator}.
+ */
+public class FilterFunctionContributor implements FunctionContributor {
+
+    /**
+     * {@code in_array(value, array)}: whether {@code value} equals an element of the array
+     * parameter, rendered as an indexable {@code value = any(array)}.
+     */
+    public static final String IN_ARRAY = "spec_in_array";
+
+    @Override
+    public void contributeFunctions(FunctionContributions contributions) {
+        if (supportsArrayParameters(contributions.getDialect())) {
+            contributions.getFunctionRegistry().registerPattern(IN_ARRAY, "(?1 = any(?2))",
+                    contributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN));
+        }
+    }
+
+    static boolean supportsArrayParameters(Dialect dialect) {
+        return dialect instanceof PostgreSQLDialect || dialect instanceof H2Dialect;
+    }
+}
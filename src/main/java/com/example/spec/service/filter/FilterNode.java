@@ -0,0 +1,29 @@
+package com.example.spec.service.filter;
+
+import java.util.List;
+
+/**
+ * Immutable typed AST of a compiled filter. Condition values are already coerced to the
+ * java type of the filtered field: {@code null}, a single value or an unmodifiable list for
+ * {@link Operator#IN}/{@link Operator#NOT_IN}. Constants only appear after
+ * {@link FilterOptimizer optimization}.
+ */
+public sealed interface FilterNode permits FilterNode.Junction, FilterNode.Condition, FilterNode.Constant {
+
+    record Junction(Logic logic, List<FilterNode> children) implements FilterNode {
+
+        public Junction {
+            children = List.copyOf(children);
+        }
+    }
+
+    record Condition(String field, Operator operator, Object value) implements FilterNode {
+    }
+
+    record Constant(boolean value) implements FilterNode {
+
+        public static final Constant TRUE = new Constant(true);
+
+        public static final Constant FALSE = new Constant(false);
+    }
+}
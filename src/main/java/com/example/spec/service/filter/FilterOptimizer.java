@@ -0,0 +1,326 @@
+package com.example.spec.service.filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Boolean simplification of a typed filter before any criteria query is built:
+ * <ul>
+ *     <li>nested junctions of the same logic are flattened and single-child junctions unwrapped;</li>
+ *     <li>duplicate predicates are removed;</li>
+ *     <li>ORed {@code eq}/{@code in} predicates on one field are merged into a single {@code in};</li>
+ *     <li>ANDed predicates on one field are intersected: ranges are narrowed to the tightest bounds
+ *     and {@code eq}/{@code in} candidates are filtered by the other predicates;</li>
+ *     <li>contradictions fold to {@link FilterNode.Constant#FALSE}, which callers answer without
+ *     querying the database.</li>
+ * </ul>
+ * All rewrites preserve SQL three-valued semantics of a WHERE clause: a row matches the result
+ * exactly when it matched the input.
+ */
+public final class FilterOptimizer {
+
+    private FilterOptimizer() {
+    }
+
+    public static FilterNode optimize(FilterNode node) {
+        if (node instanceof FilterNode.Junction junction) {
+            return optimize(junction);
+        }
+        if (node instanceof FilterNode.Condition condition) {
+            return optimize(condition);
+        }
+        return node;
+    }
+
+    private static FilterNode optimize(FilterNode.Condition condition) {
+        if (!condition.operator().isMultiValued()) {
+            return condition;
+        }
+        Collection<?> values = (Collection<?>) condition.value();
+        if (values.isEmpty()) {
+            return condition.operator() == Operator.IN ? FilterNode.Constant.FALSE : FilterNode.Constant.TRUE;
+        }
+        Set<Object> distinct = new LinkedHashSet<>(values);
+        if (distinct.size() == 1) {
+            Operator operator = condition.operator() == Operator.IN ? Operator.EQ : Operator.NOT_EQ;
+            return new FilterNode.Condition(condition.field(), operator, distinct.iterator().next());
+        }
+        if (distinct.size() == values.size()) {
+            return condition;
+        }
+        return new FilterNode.Condition(condition.field(), condition.operator(), List.copyOf(distinct));
+    }
+
+    private static FilterNode optimize(FilterNode.Junction junction) {
+        Logic logic = junction.logic();
+        FilterNode.Constant absorbing = logic == Logic.AND ? FilterNode.Constant.FALSE : FilterNode.Constant.TRUE;
+
+        Set<FilterNode> children = new LinkedHashSet<>();
+        for (FilterNode child : junction.children()) {
+            FilterNode optimized = optimize(child);
+            if (optimized.equals(absorbing)) {
+                return absorbing;
+            }
+            if (optimized instanceof FilterNode.Junction nested && nested.logic() == logic) {
+                children.addAll(nested.children());
+            } else if (!(optimized instanceof FilterNode.Constant)) {
+                children.add(optimized);
+            }
+        }
+
+        List<FilterNode> merged = logic == Logic.AND ? intersect(children) : unite(children);
+        if (merged == null) {
+            return absorbing;
+        }
+        if (merged.isEmpty()) {
+            return logic == Logic.AND ? FilterNode.Constant.TRUE : FilterNode.Constant.FALSE;
+        }
+        if (merged.size() == 1) {
+            return merged.get(0);
+        }
+        return new FilterNode.Junction(logic, merged);
+    }
+
+    /**
+     * Merges ORed {@code eq}/{@code in} conditions on the same field into one {@code in}.
+     */
+    private static List<FilterNode> unite(Collection<FilterNode> children) {
+        Map<String, Set<Object>> values = new LinkedHashMap<>();
+        for (FilterNode child : children) {
+            if (isCandidateSet(child)) {
+                values.computeIfAbsent(((FilterNode.Condition) child).field(), field -> new LinkedHashSet<>());
+            }
+        }
+        List<FilterNode> result = new ArrayList<>(children.size());
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (FilterNode child : children) {
+            if (!isCandidateSet(child)) {
+                result.add(child);
+                continue;
+            }
+            FilterNode.Condition condition = (FilterNode.Condition) child;
+            values.get(condition.field()).addAll(candidates(condition));
+            if (!positions.containsKey(condition.field())) {
+                positions.put(condition.field(), result.size());
+                result.add(condition);
+            }
+        }
+        positions.forEach((field, position) -> result.set(position, candidateCondition(field, values.get(field))));
+        return result;
+    }
+
+    /**
+     * Intersects ANDed conditions on the same field, returning {@code null} on a contradiction.
+     */
+    private static List<FilterNode> intersect(Collection<FilterNode> children) {
+        Map<String, List<FilterNode.Condition>> byField = new LinkedHashMap<>();
+        for (FilterNode child : children) {
+            if (child instanceof FilterNode.Condition condition) {
+                byField.computeIfAbsent(condition.field(), field -> new ArrayList<>()).add(condition);
+            }
+        }
+        List<FilterNode> result = new ArrayList<>(children.size());
+        for (FilterNode child : children) {
+            if (!(child instanceof FilterNode.Condition condition)) {
+                result.add(child);
+                continue;
+            }
+            List<FilterNode.Condition> conditions = byField.get(condition.field());
+            if (conditions.size() == 1) {
+                result.add(condition);
+            } else if (conditions.get(0) == condition) {
+                List<FilterNode.Condition> intersected = new FieldIntersection(condition.field()).intersect(conditions);
+                if (intersected == null) {
+                    return null;
+                }
+                result.addAll(intersected);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isCandidateSet(FilterNode node) {
+        return node instanceof FilterNode.Condition condition
+                && (condition.operator() == Operator.IN || condition.operator() == Operator.EQ && condition.value() != null);
+    }
+
+    private static Collection<?> candidates(FilterNode.Condition condition) {
+        return condition.operator() == Operator.IN ? (Collection<?>) condition.value() : List.of(condition.value());
+    }
+
+    private static FilterNode.Condition candidateCondition(String field, Collection<Object> values) {
+        return values.size() == 1
+                ? new FilterNode.Condition(field, Operator.EQ, values.iterator().next())
+                : new FilterNode.Condition(field, Operator.IN, List.copyOf(values));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private static boolean same(Object left, Object right) {
+        if (left instanceof Comparable<?> && left.getClass() == right.getClass()) {
+            return compare(left, right) == 0;
+        }
+        return left.equals(right);
+    }
+
+    private static boolean containsSame(Collection<?> values, Object value) {
+        for (Object candidate : values) {
+            if (same(candidate, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accumulates the ANDed conditions on one field.
+     */
+    private static final class FieldIntersection {
+
+        private final String field;
+
+        private boolean isNull;
+
+        private boolean notNull;
+
+        private Set<Object> candidates;
+
+        private FilterNode.Condition lower;
+
+        private FilterNode.Condition upper;
+
+        private final List<FilterNode.Condition> exclusions = new ArrayList<>();
+
+        private FieldIntersection(String field) {
+            this.field = field;
+        }
+
+        List<FilterNode.Condition> intersect(List<FilterNode.Condition> conditions) {
+            for (FilterNode.Condition condition : conditions) {
+                if (!add(condition)) {
+                    return null;
+                }
+            }
+            if (isNull) {
+                return notNull || !exclusions.isEmpty() ? null : List.of(new FilterNode.Condition(field, Operator.EQ, null));
+            }
+            if (candidates != null) {
+                candidates.removeIf(value -> !satisfiesRanges(value) || isExcluded(value));
+                return candidates.isEmpty() ? null : List.of(candidateCondition(field, candidates));
+            }
+            List<FilterNode.Condition> result = new ArrayList<>();
+            if (lower != null && upper != null) {
+                int order = compare(lower.value(), upper.value());
+                if (order > 0 || order == 0 && (lower.operator() == Operator.GT || upper.operator() == Operator.LT)) {
+                    return null;
+                }
+                if (order == 0) {
+                    FilterNode.Condition point = new FilterNode.Condition(field, Operator.EQ, lower.value());
+                    return isExcluded(lower.value()) ? null : List.of(point);
+                }
+            }
+            if (lower != null) {
+                result.add(lower);
+            }
+            if (upper != null) {
+                result.add(upper);
+            }
+            result.addAll(exclusions);
+            if (result.isEmpty()) {
+                result.add(new FilterNode.Condition(field, Operator.NOT_EQ, null));
+            }
+            return result;
+        }
+
+        private boolean add(FilterNode.Condition condition) {
+            Object value = condition.value();
+            switch (condition.operator()) {
+                case EQ -> {
+                    if (value == null) {
+                        isNull = true;
+                    } else {
+                        notNull = true;
+                        return restrictCandidates(List.of(value));
+                    }
+                }
+                case NOT_EQ -> {
+                    if (value == null) {
+                        notNull = true;
+                    } else {
+                        exclusions.add(condition);
+                    }
+                }
+                case IN -> {
+                    notNull = true;
+                    return restrictCandidates((Collection<?>) value);
+                }
+                case NOT_IN -> exclusions.add(condition);
+                case GT, GE -> {
+                    notNull = true;
+                    if (lower == null || tighter(condition, lower, 1)) {
+                        lower = condition;
+                    }
+                }
+                case LT, LE -> {
+                    notNull = true;
+                    if (upper == null || tighter(condition, upper, -1)) {
+                        upper = condition;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean restrictCandidates(Collection<?> values) {
+            if (candidates == null) {
+                candidates = new LinkedHashSet<>(values);
+            } else {
+                candidates.removeIf(candidate -> !containsSame(values, candidate));
+            }
+            return !candidates.isEmpty();
+        }
+
+        /**
+         * Whether {@code bound} excludes more than {@code current}; {@code direction} is 1 for lower
+         * and -1 for upper bounds.
+         */
+        private static boolean tighter(FilterNode.Condition bound, FilterNode.Condition current, int direction) {
+            int order = compare(bound.value(), current.value()) * direction;
+            return order > 0 || order == 0 && (bound.operator() == Operator.GT || bound.operator() == Operator.LT);
+        }
+
+        private boolean satisfiesRanges(Object value) {
+            if (lower != null) {
+                int order = compare(value, lower.value());
+                if (order < 0 || order == 0 && lower.operator() == Operator.GT) {
+                    return false;
+                }
+            }
+            if (upper != null) {
+                int order = compare(value, upper.value());
+                return order < 0 || order == 0 && upper.operator() == Operator.LE;
+            }
+            return true;
+        }
+
+        private boolean isExcluded(Object value) {
+            for (FilterNode.Condition exclusion : exclusions) {
+                boolean excluded = exclusion.operator() == Operator.NOT_EQ
+                        ? same(exclusion.value(), value)
+                        : containsSame((Collection<?>) exclusion.value(), value);
+                if (excluded) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.exception.FilterException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Validated template of one filter shape. Each condition with a literal owns a slot; binding the
+ * literals of a concrete filter to the slots yields its typed {@link FilterNode}.
+ */
+final class FilterPlan {
+
+    sealed interface Template permits JunctionTemplate, ConditionTemplate {
+    }
+
+    record JunctionTemplate(Logic logic, List<Template> children) implements Template {
+    }
+
+    /**
+     * @param slot index of the literal bound to this condition, {@code -1} for a {@code null} literal
+     */
+    record ConditionTemplate(Operator operator, int slot, FieldDescriptor descriptor) implements Template {
+    }
+
+    private final Template root;
+
+    private final int slots;
+
+    FilterPlan(Template root, int slots) {
+        this.root = root;
+        this.slots = slots;
+    }
+
+    FilterNode bind(List<JsonNode> literals) {
+        if (literals.size() != slots) {
+            throw new FilterException("Expected %d literals but got %d".formatted(slots, literals.size()));
+        }
+        return bind(root, literals);
+    }
+
+    private FilterNode bind(Template template, List<JsonNode> literals) {
+        if (template instanceof JunctionTemplate junction) {
+            List<FilterNode> children = new ArrayList<>(junction.children().size());
+            for (Template child : junction.children()) {
+                children.add(bind(child, literals));
+            }
+            return new FilterNode.Junction(junction.logic(), children);
+        }
+        ConditionTemplate condition = (ConditionTemplate) template;
+        Object value = condition.slot() < 0 ? null : coerce(condition, literals.get(condition.slot()));
+        return new FilterNode.Condition(condition.descriptor().name(), condition.operator(), value);
+    }
+
+    private Object coerce(ConditionTemplate condition, JsonNode literal) {
+        try {
+            if (!condition.operator().isMultiValued()) {
+                return condition.descriptor().coercer().apply(literal.asText());
+            }
+            List<Object> values = new ArrayList<>(literal.size());
+            for (JsonNode element : literal) {
+                if (element.isNull()) {
+                    throw new FilterException("Null is not allowed in '%s' values".formatted(condition.operator().token()));
+                }
+                values.add(condition.descriptor().coercer().apply(element.asText()));
+            }
+            return Collections.unmodifiableList(values);
+        } catch (FilterException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new FilterException("Illegal value for field '%s': %s".formatted(condition.descriptor().name(), literal), e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.spec.service.filter;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Translates a typed {@link FilterNode} into criteria predicates. Values are already coerced, so
+ * no type checks or parsing happen while Hibernate builds the query.
+ */
+public final class FilterSpecifications {
+
+    private FilterSpecifications() {
+    }
+
+    public static <T> Specification<T> toSpecification(FilterNode node) {
+        return (root, cq, cb) -> toPredicate(node, root, cb);
+    }
+
+    public static Predicate toPredicate(FilterNode node, Root<?> root, CriteriaBuilder cb) {
+        return toPredicate(node, root, cb, InListTranslator.PLAIN);
+    }
+
+    public static Predicate toPredicate(FilterNode node, Root<?> root, CriteriaBuilder cb, InListTranslator inLists) {
+        if (node instanceof FilterNode.Junction junction) {
+            List<FilterNode> children = junction.children();
+            Predicate[] predicates = new Predicate[children.size()];
+            for (int i = 0; i < predicates.length; i++) {
+                predicates[i] = toPredicate(children.get(i), root, cb, inLists);
+            }
+            return junction.logic() == Logic.AND ? cb.and(predicates) : cb.or(predicates);
+        }
+        if (node instanceof FilterNode.Constant constant) {
+            return constant.value() ? cb.conjunction() : cb.disjunction();
+        }
+        return toPredicate((FilterNode.Condition) node, root, cb, inLists);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate toPredicate(FilterNode.Condition condition, Root<?> root, CriteriaBuilder cb,
+                                         InListTranslator inLists) {
+        Path path = root.get(condition.field());
+        Object value = condition.value();
+
+        return switch (condition.operator()) {
+            case EQ -> value == null ? cb.isNull(path) : cb.equal(path, value);
+            case NOT_EQ -> value == null ? cb.isNotNull(path) : cb.notEqual(path, value);
+            case GT -> cb.greaterThan(path, (Comparable) value);
+            case GE -> cb.greaterThanOrEqualTo(path, (Comparable) value);
+            case LT -> cb.lessThan(path, (Comparable) value);
+            case LE -> cb.lessThanOrEqualTo(path, (Comparable) value);
+            case IN -> inLists.in(cb, path, (List<?>) value, false);
+            case NOT_IN -> inLists.in(cb, path, (List<?>) value, true);
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.spec.service.filter;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies entities through their Hibernate persister: the copy gets the id and the values of all
+ * persistent attributes, uninitialized proxies are loaded first. The copy is shallow, associated
+ * entities and collections are shared with the original.
+ * <p>
+ * The entity manager factory is looked up on first use: entity listeners depend on this copier
+ * and are created while the factory is built.
+ */
+@Component
+public class HibernateEntityCopier implements EntityCopier {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    public HibernateEntityCopier(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Object copy(Object entity) {
+        if (entity == null) {
+            return null;
+        }
+        SessionFactoryImplementor sessionFactory = this.sessionFactory;
+        if (sessionFactory == null) {
+            sessionFactory = entityManagerFactory.getObject().unwrap(SessionFactoryImplementor.class);
+            this.sessionFactory = sessionFactory;
+        }
+        EntityPersister persister = sessionFactory.getMappingMetamodel().findEntityDescriptor(Hibernate.getClass(entity));
+        if (persister == null) {
+            return entity;
+        }
+        Object source = Hibernate.unproxy(entity);
+        Object copy = persister.getRepresentationStrategy().getInstantiator().instantiate(sessionFactory);
+        persister.setValues(copy, persister.getValues(source));
+        persister.getIdentifierMapping().setIdentifier(copy, persister.getIdentifierMapping().getIdentifier(source), null);
+        return copy;
+    }
+}
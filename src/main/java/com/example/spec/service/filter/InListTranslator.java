@@ -0,0 +1,103 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.config.FilterProperties;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates {@code in}/{@code !in} value lists so that their SQL does not depend on the exact
+ * list length:
+ * <ul>
+ *     <li>up to {@code spec.filter.in-list-padding-threshold} values the list is padded to the
+ *     next power of two by repeating its last value, so the statement and plan caches see at
+ *     most log2(threshold) distinct SQL strings per predicate;</li>
+ *     <li>larger lists are bound as a single array parameter, {@code value = any(?)}, on
+ *     databases that support it (PostgreSQL, H2);</li>
+ *     <li>elsewhere larger lists are split into ORed padded chunks of threshold size.</li>
+ * </ul>
+ * Only array parameters keep large lists within driver bind parameter limits: chunks keep each
+ * {@code IN} list short but still bind every value, so on databases without array parameters the
+ * number of values is bounded by {@code spec.filter.admission.max-in-values} alone, which must
+ * then stay below the driver's limit (2100 parameters per statement on SQL Server, for example).
+ */
+@Slf4j
+@Component
+public class InListTranslator {
+
+    /**
+     * Binds every value as its own parameter, as plain criteria {@code in} does.
+     */
+    public static final InListTranslator PLAIN = new InListTranslator(Integer.MAX_VALUE, false, false);
+
+    private final int paddingThreshold;
+
+    private final boolean padding;
+
+    private final boolean arrays;
+
+    @Autowired
+    public InListTranslator(FilterProperties properties, EntityManagerFactory entityManagerFactory) {
+        this(properties.getInListPaddingThreshold(),
+                true,
+                FilterFunctionContributor.supportsArrayParameters(
+                        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()));
+        log.debug("In-list padding threshold {}, array parameters {}", paddingThreshold, arrays);
+    }
+
+    InListTranslator(int paddingThreshold, boolean padding, boolean arrays) {
+        this.paddingThreshold = paddingThreshold;
+        this.padding = padding;
+        this.arrays = arrays;
+    }
+
+    public Predicate in(CriteriaBuilder cb, Path<?> path, List<?> values, boolean negated) {
+        Predicate in;
+        if (values.size() <= paddingThreshold) {
+            in = path.in(padded(values));
+        } else if (arrays) {
+            in = cb.isTrue(cb.function(FilterFunctionContributor.IN_ARRAY, Boolean.class, path,
+                    ((HibernateCriteriaBuilder) cb).value(toArray(path.getJavaType(), values))));
+            if (negated) {
+                return cb.and(cb.isNotNull(path), cb.not(in));
+            }
+        } else {
+            List<Predicate> chunks = new ArrayList<>();
+            for (int from = 0; from < values.size(); from += paddingThreshold) {
+                chunks.add(path.in(padded(values.subList(from, Math.min(values.size(), from + paddingThreshold)))));
+            }
+            in = cb.or(chunks.toArray(Predicate[]::new));
+        }
+        return negated ? cb.not(in) : in;
+    }
+
+    private List<?> padded(List<?> values) {
+        int size = values.size();
+        if (!padding || size < 2 || Integer.bitCount(size) == 1) {
+            return values;
+        }
+        int target = Integer.highestOneBit(size) << 1;
+        List<Object> padded = new ArrayList<>(target);
+        padded.addAll(values);
+        Object last = values.get(size - 1);
+        while (padded.size() < target) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    private static Object[] toArray(Class<?> javaType, List<?> values) {
+        Object[] array = (Object[]) Array.newInstance(ValueCoercers.boxed(javaType), values.size());
+        return values.toArray(array);
+    }
+}
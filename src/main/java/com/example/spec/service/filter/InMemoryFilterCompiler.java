@@ -0,0 +1,151 @@
+package com.example.spec.service.filter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Second backend of the filter language: compiles a typed filter into a {@link Predicate} over
+ * entity instances, for objects already in memory.
+ * <p>
+ * Fields are read through the accessors pre-bound in the {@link FieldRegistry} and the operators
+ * follow the SQL semantics of {@link FilterSpecifications}: a comparison with a {@code null}
+ * field never matches, numbers compare by value ({@code 22.0 eq 22.00}) and {@code in} lists are
+ * looked up in a set built once at compile time.
+ */
+@RequiredArgsConstructor
+@Component
+public class InMemoryFilterCompiler {
+
+    private final FieldRegistry fieldRegistry;
+
+    public <T> Predicate<T> compile(Class<T> entityClass, CompiledFilter filter) {
+        return compile(entityClass, filter.root());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Predicate<T> compile(Class<T> entityClass, FilterNode node) {
+        return (Predicate<T>) toPredicate(entityClass, node);
+    }
+
+    private Predicate<Object> toPredicate(Class<?> entityClass, FilterNode node) {
+        if (node instanceof FilterNode.Junction junction) {
+            List<FilterNode> children = junction.children();
+            @SuppressWarnings("unchecked")
+            Predicate<Object>[] predicates = new Predicate[children.size()];
+            for (int i = 0; i < predicates.length; i++) {
+                predicates[i] = toPredicate(entityClass, children.get(i));
+            }
+            return junction.logic() == Logic.AND ? all(predicates) : any(predicates);
+        }
+        if (node instanceof FilterNode.Constant constant) {
+            return constant.value() ? entity -> true : entity -> false;
+        }
+        FilterNode.Condition condition = (FilterNode.Condition) node;
+        Function<Object, Object> accessor = fieldRegistry.descriptor(entityClass, condition.field()).requireAccessor();
+        return toPredicate(condition, accessor);
+    }
+
+    private static Predicate<Object> all(Predicate<Object>[] predicates) {
+        return entity -> {
+            for (Predicate<Object> predicate : predicates) {
+                if (!predicate.test(entity)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static Predicate<Object> any(Predicate<Object>[] predicates) {
+        return entity -> {
+            for (Predicate<Object> predicate : predicates) {
+                if (predicate.test(entity)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate<Object> toPredicate(FilterNode.Condition condition, Function<Object, Object> accessor) {
+        Object value = condition.value();
+        Comparable bound = value instanceof Comparable<?> comparable ? comparable : null;
+
+        return switch (condition.operator()) {
+            case EQ -> value == null
+                    ? entity -> accessor.apply(entity) == null
+                    : entity -> same(accessor.apply(entity), value);
+            case NOT_EQ -> value == null
+                    ? entity -> accessor.apply(entity) != null
+                    : entity -> {
+                        Object field = accessor.apply(entity);
+                        return field != null && !same(field, value);
+                    };
+            case GT -> entity -> {
+                Object field = accessor.apply(entity);
+                return field != null && bound.compareTo(field) < 0;
+            };
+            case GE -> entity -> {
+                Object field = accessor.apply(entity);
+                return field != null && bound.compareTo(field) <= 0;
+            };
+            case LT -> entity -> {
+                Object field = accessor.apply(entity);
+                return field != null && bound.compareTo(field) > 0;
+            };
+            case LE -> entity -> {
+                Object field = accessor.apply(entity);
+                return field != null && bound.compareTo(field) >= 0;
+            };
+            case IN -> {
+                Set<Object> values = lookupSet((Collection<?>) value);
+                yield entity -> {
+                    Object field = accessor.apply(entity);
+                    return field != null && values.contains(field);
+                };
+            }
+            case NOT_IN -> {
+                Set<Object> values = lookupSet((Collection<?>) value);
+                yield values.isEmpty()
+                        ? entity -> true
+                        : entity -> {
+                            Object field = accessor.apply(entity);
+                            return field != null && !values.contains(field);
+                        };
+            }
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean same(Object field, Object value) {
+        if (field == null) {
+            return false;
+        }
+        if (field instanceof BigDecimal decimal) {
+            return decimal.compareTo((BigDecimal) value) == 0;
+        }
+        return field.equals(value) || field instanceof Comparable comparable
+                && field.getClass() == value.getClass() && comparable.compareTo(value) == 0;
+    }
+
+    /**
+     * Decimals are kept in a tree set, whose lookups compare by value without allocating.
+     */
+    private static Set<Object> lookupSet(Collection<?> values) {
+        Set<Object> set = values.stream().anyMatch(BigDecimal.class::isInstance)
+                ? new TreeSet<>()
+                : new HashSet<>(values.size() * 2);
+        set.addAll(values);
+        return set;
+    }
+}
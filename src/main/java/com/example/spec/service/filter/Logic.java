@@ -0,0 +1,13 @@
+package com.example.spec.service.filter;
+
+/**
+ * Logic operations combining nested filters.
+ */
+public enum Logic {
+    AND,
+    OR;
+
+    public static boolean isLogic(String key) {
+        return AND.name().equals(key) || OR.name().equals(key);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.exception.FilterException;
+
+/**
+ * Predicate operators of the JSON filter language.
+ */
+public enum Operator {
+
+    EQ("eq"),
+    NOT_EQ("!eq"),
+    GT("gt"),
+    GE("ge"),
+    LT("lt"),
+    LE("le"),
+    IN("in"),
+    NOT_IN("!in");
+
+    private final String token;
+
+    Operator(String token) {
+        this.token = token;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public boolean isRange() {
+        return this == GT || this == GE || this == LT || this == LE;
+    }
+
+    public boolean isMultiValued() {
+        return this == IN || this == NOT_IN;
+    }
+
+    public static Operator fromToken(String token) {
+        for (Operator operator : values()) {
+            if (operator.token.equals(token)) {
+                return operator;
+            }
+        }
+        throw new FilterException("'%s' operation is not supported!".formatted(token));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.exception.FilterException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single pass, token level filter parser. Builds the typed {@link FilterNode} and its shape
+ * directly from a {@link JsonParser} without materializing a {@code JsonNode} tree; literals are
+ * coerced to the field type as they are read.
+ * <p>
+ * Accepts the same language as {@link FilterCompiler#compile(Class, com.fasterxml.jackson.databind.JsonNode)},
+ * including its leniency: keys following a logic operation or the first operation of a predicate
+ * are ignored, and so is anything after the root object.
+ */
+final class StreamingFilterParser {
+
+    private final JsonParser parser;
+
+    private final FieldRegistry fieldRegistry;
+
+    private final Class<?> entityClass;
+
+    private final int maxDepth;
+
+    private final StringBuilder shape = new StringBuilder();
+
+    private int depth;
+
+    StreamingFilterParser(JsonParser parser, FieldRegistry fieldRegistry, Class<?> entityClass, int maxDepth) {
+        this.parser = parser;
+        this.fieldRegistry = fieldRegistry;
+        this.entityClass = entityClass;
+        this.maxDepth = maxDepth;
+    }
+
+    CompiledFilter parse() throws IOException {
+        parser.nextToken();
+        FilterNode root = parseNode();
+        return new CompiledFilter(shape.toString(), root);
+    }
+
+    private FilterNode parseNode() throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new FilterException("Object is expected to describe predicate or logic operations!");
+        }
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            throw new FilterException("Empty object! Cannot determine predicate or logic operation");
+        }
+        String key = parser.currentName();
+        FilterNode node;
+        if (Logic.isLogic(key)) {
+            node = parseJunction(Logic.valueOf(key));
+            skipRemainingFields();
+        } else {
+            node = parseCondition(key);
+            if (parser.nextToken() != JsonToken.END_OBJECT) {
+                throw new FilterException("Only one predicate is allowed for field: " + key);
+            }
+        }
+        return node;
+    }
+
+    private FilterNode parseJunction(Logic logic) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new FilterException("Array is expected for logic operations: " + logic);
+        }
+        FilterCompiler.checkDepth(++depth, maxDepth);
+        shape.append(logic.name()).append('(');
+        List<FilterNode> children = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!children.isEmpty()) {
+                shape.append(',');
+            }
+            children.add(parseNode());
+        }
+        if (children.isEmpty()) {
+            throw new FilterException("Empty predicates list: " + logic);
+        }
+        shape.append(')');
+        depth--;
+        return new FilterNode.Junction(logic, children);
+    }
+
+    private FilterNode parseCondition(String field) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new FilterException("Object is expected to describe predicate for field: " + field);
+        }
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            throw new FilterException("No value(s) for predicate");
+        }
+        Operator operator = Operator.fromToken(parser.currentName());
+        ValueCoercers.TokenCoercer coercer = fieldRegistry.descriptor(entityClass, field, operator).tokenCoercer();
+        FilterCompiler.appendField(shape, field).append(' ').append(operator.token()).append(' ');
+
+        JsonToken token = parser.nextToken();
+        Object value;
+        if (operator.isMultiValued()) {
+            if (token != JsonToken.START_ARRAY) {
+                throw new FilterException("'%s' operation supported only for arrays".formatted(operator.token()));
+            }
+            shape.append("[?]");
+            value = parseValues(field, operator, coercer);
+        } else if (token == JsonToken.VALUE_NULL) {
+            if (operator != Operator.EQ && operator != Operator.NOT_EQ) {
+                throw new FilterException("'%s' operation does not support null".formatted(operator.token()));
+            }
+            shape.append("null");
+            value = null;
+        } else if (token.isScalarValue()) {
+            shape.append('?');
+            value = coerce(field, coercer);
+        } else {
+            throw new FilterException("Single value is expected for '%s' operation".formatted(operator.token()));
+        }
+        skipRemainingFields();
+        return new FilterNode.Condition(field, operator, value);
+    }
+
+    private List<Object> parseValues(String field, Operator operator, ValueCoercers.TokenCoercer coercer) throws IOException {
+        List<Object> values = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                throw new FilterException("Null is not allowed in '%s' values".formatted(operator.token()));
+            }
+            if (!token.isScalarValue()) {
+                throw new FilterException("Illegal value for field '%s': %s".formatted(field, token));
+            }
+            values.add(coerce(field, coercer));
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    private Object coerce(String field, ValueCoercers.TokenCoercer coercer) throws IOException {
+        try {
+            return coercer.coerce(parser);
+        } catch (RuntimeException | JsonProcessingException e) {
+            throw new FilterException("Illegal value for field '%s': %s".formatted(field, parser.getText()), e);
+        }
+    }
+
+    private void skipRemainingFields() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+}
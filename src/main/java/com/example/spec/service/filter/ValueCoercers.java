@@ -0,0 +1,125 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.exception.FilterException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Resolves, once per field type, the function turning a JSON literal into a value of that type.
+ */
+public final class ValueCoercers {
+
+    /**
+     * Coerces the literal at the current token of a {@link JsonParser}.
+     */
+    @FunctionalInterface
+    public interface TokenCoercer {
+        Object coerce(JsonParser parser) throws IOException;
+    }
+
+    private ValueCoercers() {
+    }
+
+    /**
+     * Token level counterpart of {@link #forType(Class)}: numbers and booleans are read from the
+     * parser directly and dates are parsed from its character buffer, so no intermediate String is
+     * created except for String fields.
+     */
+    public static TokenCoercer forToken(Class<?> fieldType) {
+        Class<?> type = boxed(fieldType);
+        if (type == BigDecimal.class) {
+            return parser -> isNumber(parser) ? parser.getDecimalValue() : new BigDecimal(parser.getText());
+        } else if (type == Integer.class) {
+            return parser -> isInteger(parser) ? Integer.valueOf(parser.getIntValue()) : Integer.valueOf(parser.getText());
+        } else if (type == Long.class) {
+            return parser -> isInteger(parser) ? Long.valueOf(parser.getLongValue()) : Long.valueOf(parser.getText());
+        } else if (type == Double.class) {
+            return parser -> isNumber(parser) ? Double.valueOf(parser.getDoubleValue()) : Double.valueOf(parser.getText());
+        } else if (type == Float.class) {
+            return parser -> isNumber(parser) ? Float.valueOf(parser.getFloatValue()) : Float.valueOf(parser.getText());
+        } else if (type == Short.class) {
+            return parser -> isInteger(parser) ? Short.valueOf(parser.getShortValue()) : Short.valueOf(parser.getText());
+        } else if (type == Byte.class) {
+            return parser -> isInteger(parser) ? Byte.valueOf(parser.getByteValue()) : Byte.valueOf(parser.getText());
+        } else if (type == String.class) {
+            return JsonParser::getText;
+        } else if (type == LocalDateTime.class) {
+            return parser -> LocalDateTime.parse(characters(parser));
+        } else if (type == LocalDate.class) {
+            return parser -> LocalDate.parse(characters(parser));
+        } else if (type == Boolean.class) {
+            return parser -> parser.currentToken().isBoolean() ? parser.getBooleanValue() : Boolean.valueOf(parser.getText());
+        }
+        throw new FilterException("Field type '%s' is not supported!".formatted(fieldType));
+    }
+
+    public static Function<String, Object> forType(Class<?> fieldType) {
+        Class<?> type = boxed(fieldType);
+        if (type == BigDecimal.class) {
+            return BigDecimal::new;
+        } else if (type == Integer.class) {
+            return Integer::valueOf;
+        } else if (type == Long.class) {
+            return Long::valueOf;
+        } else if (type == Double.class) {
+            return Double::valueOf;
+        } else if (type == Float.class) {
+            return Float::valueOf;
+        } else if (type == Short.class) {
+            return Short::valueOf;
+        } else if (type == Byte.class) {
+            return Byte::valueOf;
+        } else if (type == String.class) {
+            return value -> value;
+        } else if (type == LocalDateTime.class) {
+            return LocalDateTime::parse;
+        } else if (type == LocalDate.class) {
+            return LocalDate::parse;
+        } else if (type == Boolean.class) {
+            return Boolean::valueOf;
+        }
+        throw new FilterException("Field type '%s' is not supported!".formatted(fieldType));
+    }
+
+    private static boolean isInteger(JsonParser parser) {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_INT;
+    }
+
+    private static boolean isNumber(JsonParser parser) {
+        return parser.currentToken().isNumeric();
+    }
+
+    private static CharSequence characters(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        return CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    public static boolean isComparable(Class<?> fieldType) {
+        Class<?> type = boxed(fieldType);
+        return Number.class.isAssignableFrom(type) || type == LocalDateTime.class || type == LocalDate.class;
+    }
+
+    public static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) return Integer.class;
+        if (type == long.class) return Long.class;
+        if (type == double.class) return Double.class;
+        if (type == float.class) return Float.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == char.class) return Character.class;
+        return type;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.spec.service.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Data source handed to Hibernate whose connections record the bind parameters of the
+ * statements they prepare while a filter is explained, see {@link FilterExplainer}. At other
+ * times statements are returned unwrapped.
+ */
+class BindRecordingDataSource extends DelegatingDataSource {
+
+    /**
+     * A recorded {@code PreparedStatement} parameter setter call.
+     */
+    record Bind(Method setter, Object[] arguments) {
+
+        void replay(PreparedStatement statement) throws SQLException {
+            invoke(statement, setter, arguments);
+        }
+
+        /**
+         * The bound value, arrays as lists.
+         */
+        Object value() throws SQLException {
+            Object value = setter.getName().equals("setNull") ? null : arguments[1];
+            if (value instanceof Array array) {
+                value = array.getArray();
+            }
+            return value instanceof Object[] values ? Arrays.asList(values) : value;
+        }
+    }
+
+    BindRecordingDataSource(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return recording(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return recording(super.getConnection(username, password));
+    }
+
+    private Connection recording(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, arguments) -> {
+                    Object result = invoke(connection, method, arguments);
+                    QueryCapture capture = QueryCapture.current();
+                    if (capture != null && capture.explain && method.getName().equals("prepareStatement")) {
+                        return recording((PreparedStatement) result, (String) arguments[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement recording(PreparedStatement statement, String sql) {
+        SortedMap<Integer, Bind> binds = new TreeMap<>();
+        InvocationHandler handler = (proxy, method, arguments) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && arguments != null && arguments.length >= 2 && arguments[0] instanceof Integer index) {
+                binds.put(index, new Bind(method, arguments.clone()));
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            } else if (name.equals("executeQuery") && arguments == null) {
+                QueryCapture capture = QueryCapture.current();
+                if (capture != null && capture.executedSql == null) {
+                    capture.executedSql = sql;
+                    capture.binds = new TreeMap<>(binds);
+                }
+                statement.setMaxRows(1);
+            }
+            return invoke(statement, method, arguments);
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] arguments) throws SQLException {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.spec.service.metrics;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.CanonicalFilter;
+import com.example.spec.service.filter.CompiledFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Explains filters: runs the query the specification generates with bind parameter recording
+ * enabled, reading at most one row, then runs {@code EXPLAIN} of that exact SQL with the same
+ * parameters on the same connection. Supports H2 and PostgreSQL. Needs
+ * {@code spec.filter.explain.enabled=true}, which installs the {@link BindRecordingDataSource}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class FilterExplainer {
+
+    private final EntityManager entityManager;
+
+    private final FilterProperties properties;
+
+    @Transactional(readOnly = true)
+    public <T> FilterExplanation explain(Class<T> entityClass, CompiledFilter filter, boolean analyze) {
+        if (!properties.getExplain().isEnabled()) {
+            throw new FilterException("Explaining filters is disabled, see spec.filter.explain.enabled");
+        }
+        String normalized = CanonicalFilter.render(filter.root());
+        String database = entityManager.unwrap(Session.class).doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+        if (filter.matchesNothing()) {
+            return new FilterExplanation(normalized, filter.shape(), null, List.of(), database,
+                    "No query: the filter matches no row", false);
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(entityClass);
+        Root<T> root = cq.from(entityClass);
+        cq.select(root).where(filter.toPredicate(root, cb));
+
+        QueryCapture capture = QueryCapture.start();
+        capture.explain = true;
+        try {
+            entityManager.createQuery(cq).getResultList();
+        } finally {
+            QueryCapture.stop();
+        }
+        if (capture.executedSql == null) {
+            throw new FilterException("No statement was executed for filter " + filter.shape());
+        }
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            List<Object> values = new ArrayList<>(capture.binds.size());
+            for (BindRecordingDataSource.Bind bind : capture.binds.values()) {
+                values.add(bind.value());
+            }
+            String plan = plan(connection, explainPrefix(database, analyze) + capture.executedSql, capture);
+            log.debug("Plan of {}:\n{}", normalized, plan);
+            return new FilterExplanation(normalized, filter.shape(), capture.executedSql,
+                    Collections.unmodifiableList(values), database, plan, analyze);
+        });
+    }
+
+    private static String explainPrefix(String database, boolean analyze) {
+        return switch (database) {
+            case "H2" -> analyze ? "EXPLAIN ANALYZE " : "EXPLAIN ";
+            case "PostgreSQL" -> analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ";
+            default -> throw new FilterException("EXPLAIN is not supported on " + database);
+        };
+    }
+
+    private static String plan(Connection connection, String sql, QueryCapture capture) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (BindRecordingDataSource.Bind bind : capture.binds.values()) {
+                bind.replay(statement);
+            }
+            StringJoiner plan = new StringJoiner("\n");
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    plan.add(rows.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
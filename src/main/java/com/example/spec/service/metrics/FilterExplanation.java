@@ -0,0 +1,24 @@
+package com.example.spec.service.metrics;
+
+import java.util.List;
+
+/**
+ * What the database does with a filter.
+ *
+ * @param filter     normalized filter with its literals, as optimized before translation
+ * @param shape      filter shape as written, without literals
+ * @param sql        generated SQL, {@code null} if the filter matches nothing and is never sent
+ * @param bindValues values bound to the parameters of the SQL, in parameter order
+ * @param database   database product name
+ * @param plan       execution plan reported by {@code EXPLAIN}
+ * @param analyzed   whether the plan comes from {@code EXPLAIN ANALYZE}, with actual row counts
+ *                   and timings
+ */
+public record FilterExplanation(String filter,
+                                String shape,
+                                String sql,
+                                List<Object> bindValues,
+                                String database,
+                                String plan,
+                                boolean analyzed) {
+}
@@ -0,0 +1,25 @@
+package com.example.spec.service.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Accumulates the time spent executing JDBC statements while a filter query is captured.
+ * Instantiated by Hibernate for every session.
+ */
+public class FilterJdbcListener implements SessionEventListener {
+
+    private long start;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryCapture capture = QueryCapture.current();
+        if (capture != null) {
+            capture.statementNanos += System.nanoTime() - start;
+        }
+    }
+}
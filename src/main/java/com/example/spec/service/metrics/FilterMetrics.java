@@ -0,0 +1,155 @@
+package com.example.spec.service.metrics;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.usage.FilterUsageCollector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the filter pipeline:
+ * <ul>
+ *     <li>{@code spec.filter.phase} timers tagged by {@link FilterPhase};</li>
+ *     <li>{@code spec.filter.query} timers of whole queries tagged by operation;</li>
+ *     <li>a {@code spec.filter.rows} histogram of the rows returned by list and batch queries;</li>
+ *     <li>{@code spec.filter.conditions} counters tagged by field and operator of every executed
+ *     condition.</li>
+ * </ul>
+ * Queries slower than {@code spec.filter.slow-threshold} are logged at WARN by the
+ * {@code spec.filter.slow} logger with the filter shape, whose literals are replaced by
+ * {@code ?}, the generated SQL with bind markers and the time of each phase.
+ */
+@RequiredArgsConstructor
+@Component
+public class FilterMetrics {
+
+    private static final Logger SLOW_LOG = LoggerFactory.getLogger("spec.filter.slow");
+
+    private final MeterRegistry registry;
+
+    private final FilterProperties properties;
+
+    private final FilterUsageCollector usageCollector;
+
+    private final Map<String, Counter> conditions = new ConcurrentHashMap<>();
+
+    public <T> T time(FilterPhase phase, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(phase, start);
+        }
+    }
+
+    /**
+     * Records the time of a phase started at {@code startNanos}, as returned by
+     * {@link System#nanoTime()}.
+     */
+    public void record(FilterPhase phase, long startNanos) {
+        phaseTimer(phase).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void countConditions(FilterNode node) {
+        if (node instanceof FilterNode.Junction junction) {
+            junction.children().forEach(this::countConditions);
+        } else if (node instanceof FilterNode.Condition condition) {
+            conditions.computeIfAbsent(condition.field() + ' ' + condition.operator().token(), key -> Counter
+                    .builder("spec.filter.conditions")
+                    .tag("field", condition.field())
+                    .tag("operator", condition.operator().token())
+                    .register(registry)).increment();
+        }
+    }
+
+    /**
+     * Specification of the filter timing its translation to criteria predicates.
+     */
+    public <T> Specification<T> specification(CompiledFilter filter) {
+        Specification<T> specification = filter.toSpecification();
+        return (root, cq, cb) -> {
+            long start = System.nanoTime();
+            try {
+                return specification.toPredicate(root, cq, cb);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                phaseTimer(FilterPhase.CRITERIA).record(elapsed, TimeUnit.NANOSECONDS);
+                QueryCapture capture = QueryCapture.current();
+                if (capture != null) {
+                    capture.criteriaNanos += elapsed;
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs a filter query, splitting its time into SQL execution and hydration, recording the
+     * returned rows of collection results, the filter usage and its conditions, and logging it
+     * when slow.
+     */
+    public <R> R query(Class<?> entityClass, String operation, CompiledFilter filter, Supplier<R> query) {
+        QueryCapture capture = QueryCapture.start();
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = query.get();
+        } finally {
+            QueryCapture.stop();
+        }
+        long elapsed = System.nanoTime() - start;
+        usageCollector.record(entityClass, filter.root(), elapsed);
+        countConditions(filter.root());
+
+        Timer.builder("spec.filter.query")
+                .tag("operation", operation)
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        phaseTimer(FilterPhase.SQL).record(capture.statementNanos, TimeUnit.NANOSECONDS);
+        long hydration = Math.max(0, elapsed - capture.statementNanos - capture.criteriaNanos);
+        phaseTimer(FilterPhase.HYDRATION).record(hydration, TimeUnit.NANOSECONDS);
+        if (result instanceof Collection<?> rows) {
+            DistributionSummary.builder("spec.filter.rows")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(rows(rows));
+        }
+        if (elapsed > properties.getSlowThreshold().toNanos()) {
+            SLOW_LOG.warn("Slow filter {} took {} ms (criteria {} ms, sql {} ms, hydration {} ms): shape={} sql={}",
+                    operation, millis(elapsed), millis(capture.criteriaNanos), millis(capture.statementNanos),
+                    millis(hydration), filter.shape(), capture.sql);
+        }
+        return result;
+    }
+
+    /**
+     * Rows of a collection result; batched queries return one collection per filter.
+     */
+    private static long rows(Collection<?> result) {
+        return result.stream().mapToLong(rows -> rows instanceof Collection<?> batch ? batch.size() : 1).sum();
+    }
+
+    private Timer phaseTimer(FilterPhase phase) {
+        return Timer.builder("spec.filter.phase")
+                .tag("phase", phase.tag())
+                .register(registry);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
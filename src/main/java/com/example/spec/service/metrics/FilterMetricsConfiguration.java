@@ -0,0 +1,32 @@
+package com.example.spec.service.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Installs the Hibernate hooks that let {@link FilterMetrics} split query time into SQL
+ * execution and hydration and log the SQL of slow filters, and, with
+ * {@code spec.filter.explain.enabled=true}, let {@link FilterExplainer} record bind parameters.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FilterMetricsConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer filterMetricsHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new FilterSqlInspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, FilterJdbcListener.class.getName());
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spec.filter.explain", name = "enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer filterExplainHibernateCustomizer(DataSource dataSource) {
+        return properties -> properties.put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, new BindRecordingDataSource(dataSource));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.spec.service.metrics;
+
+/**
+ * Phases of answering a filter, timed by {@link FilterMetrics} under {@code spec.filter.phase}.
+ */
+public enum FilterPhase {
+
+    /**
+     * JSON text to a tree.
+     */
+    PARSE,
+
+    /**
+     * JSON to a typed, optimized filter.
+     */
+    COMPILE,
+
+    /**
+     * Typed filter to criteria predicates.
+     */
+    CRITERIA,
+
+    /**
+     * JDBC statement execution.
+     */
+    SQL,
+
+    /**
+     * The rest of a query: SQL rendering, reading the result set and building entities.
+     */
+    HYDRATION;
+
+    String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.spec.service.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records the SQL of statements prepared while a filter query is captured.
+ */
+public class FilterSqlInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCapture capture = QueryCapture.current();
+        if (capture != null) {
+            capture.sql.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.spec.service.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * SQL and JDBC execution time of the filter query running on the current thread, filled in by
+ * the Hibernate hooks {@link FilterSqlInspector} and {@link FilterJdbcListener}. While a filter
+ * is explained, {@link BindRecordingDataSource} also records the first executed statement with
+ * its bind parameters.
+ */
+final class QueryCapture {
+
+    private static final ThreadLocal<QueryCapture> CURRENT = new ThreadLocal<>();
+
+    final List<String> sql = new ArrayList<>(1);
+
+    long statementNanos;
+
+    long criteriaNanos;
+
+    boolean explain;
+
+    String executedSql;
+
+    SortedMap<Integer, BindRecordingDataSource.Bind> binds;
+
+    static QueryCapture start() {
+        QueryCapture capture = new QueryCapture();
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    static QueryCapture current() {
+        return CURRENT.get();
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+}
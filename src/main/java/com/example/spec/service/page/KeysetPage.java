@@ -0,0 +1,13 @@
+package com.example.spec.service.page;
+
+import java.util.List;
+
+/**
+ * One page of a keyset paginated result. {@code continuationToken} is {@code null} on the last page.
+ */
+public record KeysetPage<T>(List<T> content, String continuationToken) {
+
+    public boolean hasNext() {
+        return continuationToken != null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.spec.service.page;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Request of one keyset page: rows ordered by {@code sortField} then {@code id}, starting after
+ * the position encoded in {@code continuationToken} ({@code null} for the first page).
+ */
+public record KeysetPageRequest(String sortField, Sort.Direction direction, int size, String continuationToken) {
+
+    public static KeysetPageRequest first(String sortField, Sort.Direction direction, int size) {
+        return new KeysetPageRequest(sortField, direction, size, null);
+    }
+
+    public KeysetPageRequest after(String continuationToken) {
+        return new KeysetPageRequest(sortField, direction, size, continuationToken);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.spec.service.page;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.FieldDescriptor;
+import com.example.spec.service.filter.FieldRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination of filtered queries. Pages are ordered by {@code (sortField, id)} and
+ * the next page is selected with a predicate on the last row's keys instead of an OFFSET, so the
+ * cost of a page does not depend on its position. Ordering and the limit are pushed down to SQL.
+ * <p>
+ * Nulls of the sort field are ordered last for ascending and first for descending pages, so a
+ * descending scan is the exact reverse of an ascending one on every database.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class KeysetPaginator {
+
+    private static final String ID = "id";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final EntityManager entityManager;
+
+    private final FieldRegistry fieldRegistry;
+
+    private final FilterProperties properties;
+
+    public <T> KeysetPage<T> page(Class<T> entityClass, CompiledFilter filter, KeysetPageRequest request) {
+        if (request.size() < 1 || request.size() > properties.getMaxPageSize()) {
+            throw new FilterException("Page size must be between 1 and %d".formatted(properties.getMaxPageSize()));
+        }
+        FieldDescriptor sortField = fieldRegistry.descriptor(entityClass, request.sortField());
+        FieldDescriptor idField = fieldRegistry.descriptor(entityClass, ID);
+        boolean ascending = request.direction() == null || request.direction().isAscending();
+        Position after = request.continuationToken() == null
+                ? null
+                : decode(request.continuationToken(), sortField, idField, ascending);
+
+        HibernateCriteriaBuilder cb = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<T> root = cq.from(entityClass);
+        Path<Comparable<Object>> sortPath = root.get(sortField.name());
+        Path<Comparable<Object>> idPath = root.get(ID);
+
+        Predicate predicate = filter.toPredicate(root, cb);
+        if (after != null) {
+            predicate = cb.and(predicate, seek(cb, sortPath, idPath, after, ascending, sortField.name().equals(ID)));
+        }
+        cq.multiselect(root, sortPath, idPath).where(predicate);
+        if (sortField.name().equals(ID)) {
+            cq.orderBy(ascending ? cb.asc(idPath) : cb.desc(idPath));
+        } else {
+            cq.orderBy(ascending ? cb.asc(sortPath, false) : cb.desc(sortPath, true),
+                    ascending ? cb.asc(idPath) : cb.desc(idPath));
+        }
+
+        List<Tuple> rows = entityManager.createQuery(cq)
+                .setMaxResults(request.size() + 1)
+                .getResultList();
+        int size = Math.min(rows.size(), request.size());
+        List<T> content = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            content.add(rows.get(i).get(0, entityClass));
+        }
+        if (rows.size() <= request.size()) {
+            return new KeysetPage<>(content, null);
+        }
+        Tuple last = rows.get(size - 1);
+        return new KeysetPage<>(content, encode(sortField.name(), ascending, last.get(1), last.get(2)));
+    }
+
+    /**
+     * Rows strictly after {@code after} in {@code (sortField, id)} order.
+     */
+    private static Predicate seek(CriteriaBuilder cb, Path<Comparable<Object>> sortPath, Path<Comparable<Object>> idPath,
+                                  Position after, boolean ascending, boolean sortById) {
+        Predicate afterId = ascending ? cb.greaterThan(idPath, after.id()) : cb.lessThan(idPath, after.id());
+        if (sortById) {
+            return afterId;
+        }
+        if (after.sortValue() == null) {
+            return ascending
+                    ? cb.and(cb.isNull(sortPath), afterId)
+                    : cb.or(cb.and(cb.isNull(sortPath), afterId), cb.isNotNull(sortPath));
+        }
+        Predicate beyond = ascending
+                ? cb.greaterThan(sortPath, after.sortValue())
+                : cb.lessThan(sortPath, after.sortValue());
+        Predicate tie = cb.and(cb.equal(sortPath, after.sortValue()), afterId);
+        return ascending ? cb.or(beyond, tie, cb.isNull(sortPath)) : cb.or(beyond, tie);
+    }
+
+    private String encode(String sortField, boolean ascending, Object sortValue, Object id) {
+        ObjectNode token = mapper.createObjectNode()
+                .put("f", sortField)
+                .put("a", ascending)
+                .put("i", id.toString());
+        token.put("v", sortValue == null ? null : sortValue.toString());
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mapper.writeValueAsBytes(token));
+        } catch (IOException e) {
+            throw new FilterException("Cannot encode continuation token", e);
+        }
+    }
+
+    private Position decode(String continuationToken, FieldDescriptor sortField, FieldDescriptor idField, boolean ascending) {
+        try {
+            JsonNode token = mapper.readTree(Base64.getUrlDecoder().decode(continuationToken));
+            if (!sortField.name().equals(token.path("f").asText()) || ascending != token.path("a").asBoolean()) {
+                throw new FilterException("Continuation token does not match sort " + sortField.name());
+            }
+            JsonNode value = token.path("v");
+            return new Position(value.isNull() ? null : comparable(sortField, value.asText()),
+                    comparable(idField, token.path("i").asText()));
+        } catch (FilterException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new FilterException("Illegal continuation token", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(FieldDescriptor field, String value) {
+        return (Comparable<Object>) field.coercer().apply(value);
+    }
+
+    private record Position(Comparable<Object> sortValue, Comparable<Object> id) {
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.spec.service.parallel;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.CompiledFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs broad filter queries as several queries over ranges of ids, concurrently on a bounded pool
+ * of {@code spec.filter.parallel.max-concurrency} threads, each partition in a read-only
+ * transaction of its own. Partitions therefore only see committed rows and return detached
+ * entities.
+ * <p>
+ * The id keyspace is split by {@link PartitionBoundaries}; the first and last ranges are open
+ * ended, so the ranges cover every id even when rows are inserted meanwhile. The number of
+ * partitions starts at the concurrency and adapts to the mean partition latency of the previous
+ * query of the same entity: it doubles while partitions take longer than
+ * {@code spec.filter.parallel.target-partition-latency} and halves while they take less than a
+ * quarter of it.
+ */
+@Slf4j
+@Component
+public class ParallelFilterExecutor implements DisposableBean {
+
+    private static final Set<Class<?>> INTEGRAL_IDS = Set.of(Long.class, long.class, Integer.class, int.class,
+            Short.class, short.class);
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final FilterProperties properties;
+
+    private final int concurrency;
+
+    private final ExecutorService executor;
+
+    private final Map<Class<?>, AtomicInteger> partitions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ParallelFilterExecutor(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                  DataSource dataSource, FilterProperties properties) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties;
+        int configured = properties.getParallel().getMaxConcurrency();
+        this.concurrency = configured > 0 ? configured
+                : dataSource instanceof HikariDataSource hikari ? Math.max(1, hikari.getMaximumPoolSize() / 2)
+                : 4;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, task -> {
+            Thread thread = new Thread(task, "filter-parallel-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.debug("Parallel filter queries run {} partitions at once", concurrency);
+    }
+
+    /**
+     * Returns the matching rows, sorted by id when {@code ordered}.
+     */
+    public <T> List<T> list(Class<T> entityClass, CompiledFilter filter, boolean ordered) {
+        List<T> rows = new ArrayList<>();
+        forEachPartition(entityClass, filter, ordered, rows::addAll);
+        return rows;
+    }
+
+    /**
+     * Hands the rows of every partition to {@code action} on the calling thread, in id order when
+     * {@code ordered} and as the partitions complete otherwise, and returns the number of rows.
+     * Remaining partitions are cancelled when a partition or the action fails.
+     */
+    public <T> long forEachPartition(Class<T> entityClass, CompiledFilter filter, boolean ordered,
+                                     Consumer<? super List<T>> action) {
+        if (filter.matchesNothing()) {
+            return 0;
+        }
+        String id = idAttribute(entityClass);
+        List<Range> ranges = ranges(entityClass, id, partitions(entityClass));
+        CompletionService<Partition<T>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Partition<T>>> futures = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            futures.add(completion.submit(() -> query(entityClass, filter, id, range, ordered)));
+        }
+        long rows = 0;
+        long latency = 0;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Partition<T> partition = ordered ? futures.get(i).get() : completion.take().get();
+                action.accept(partition.rows());
+                rows += partition.rows().size();
+                latency += partition.nanos();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FilterException("Interrupted while waiting for the partitions of a parallel query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw new FilterException("Partition of a parallel query failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        adapt(entityClass, ranges.size(), latency / ranges.size());
+        return rows;
+    }
+
+    /**
+     * Number of partitions the next query of the entity is split into.
+     */
+    public int partitions(Class<?> entityClass) {
+        return partitionCount(entityClass).get();
+    }
+
+    private <T> Partition<T> query(Class<T> entityClass, CompiledFilter filter, String id, Range range, boolean ordered) {
+        long start = System.nanoTime();
+        List<T> rows = transactionTemplate.execute(status -> {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<T> cq = cb.createQuery(entityClass);
+            Root<T> root = cq.from(entityClass);
+            Specification<T> specification = filter.<T>toSpecification().and(range.specification(id));
+            cq.select(root).where(specification.toPredicate(root, cq, cb));
+            if (ordered) {
+                cq.orderBy(cb.asc(root.get(id)));
+            }
+            return entityManager.createQuery(cq).getResultList();
+        });
+        return new Partition<>(rows, System.nanoTime() - start);
+    }
+
+    private <T> List<Range> ranges(Class<T> entityClass, String id, int count) {
+        List<Long> boundaries = transactionTemplate.execute(status -> switch (properties.getParallel().getBoundaries()) {
+            case MIN_MAX -> minMaxBoundaries(entityClass, id, count);
+            case SAMPLED -> sampledBoundaries(entityClass, id, count);
+        });
+        List<Range> ranges = new ArrayList<>(boundaries.size() + 1);
+        Long from = null;
+        for (Long boundary : boundaries) {
+            ranges.add(new Range(from, boundary));
+            from = boundary;
+        }
+        ranges.add(new Range(from, null));
+        return ranges;
+    }
+
+    private <T> List<Long> minMaxBoundaries(Class<T> entityClass, String id, int count) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Path<Long> path = cq.from(entityClass).get(id);
+        Object[] bounds = entityManager.createQuery(cq.multiselect(cb.min(path), cb.max(path))).getSingleResult();
+        if (bounds[0] == null) {
+            return List.of();
+        }
+        long min = ((Number) bounds[0]).longValue();
+        double span = ((Number) bounds[1]).doubleValue() - min + 1;
+        List<Long> boundaries = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            add(boundaries, min + (long) (span * i / count));
+        }
+        return boundaries;
+    }
+
+    /**
+     * Reads every {@code step}-th id of the id order in a single query rather than one offset
+     * query per boundary, each of which would skip over all the rows before it.
+     */
+    private <T> List<Long> sampledBoundaries(Class<T> entityClass, String id, int count) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> rows = cb.createQuery(Long.class);
+        long total = entityManager.createQuery(rows.select(cb.count(rows.from(entityClass)))).getSingleResult();
+        List<Long> boundaries = new ArrayList<>();
+        if (count < 2 || total < count) {
+            return boundaries;
+        }
+        String entity = entityManager.getMetamodel().entity(entityClass).getName();
+        entityManager.createQuery("select s.id from (select e.%1$s as id, row_number() over (order by e.%1$s) as position from %2$s e) s"
+                        .formatted(id, entity) + " where mod(s.position, :step) = 0 order by s.id", Number.class)
+                .setParameter("step", total / count)
+                .setMaxResults(count - 1)
+                .getResultList()
+                .forEach(boundary -> add(boundaries, boundary.longValue()));
+        return boundaries;
+    }
+
+    private static void add(List<Long> boundaries, long boundary) {
+        if (boundaries.isEmpty() || boundaries.get(boundaries.size() - 1) < boundary) {
+            boundaries.add(boundary);
+        }
+    }
+
+    private void adapt(Class<?> entityClass, int used, long meanNanos) {
+        FilterProperties.Parallel parallel = properties.getParallel();
+        long target = parallel.getTargetPartitionLatency().toNanos();
+        int next = meanNanos > target ? Math.min(parallel.getMaxPartitions(), used * 2)
+                : meanNanos < target / 4 ? Math.max(1, used / 2)
+                : used;
+        partitionCount(entityClass).set(next);
+        log.debug("{} partitions of {} took {} ms on average, next query uses {}", used, entityClass.getSimpleName(),
+                TimeUnit.NANOSECONDS.toMillis(meanNanos), next);
+    }
+
+    private AtomicInteger partitionCount(Class<?> entityClass) {
+        return partitions.computeIfAbsent(entityClass,
+                type -> new AtomicInteger(Math.min(concurrency, properties.getParallel().getMaxPartitions())));
+    }
+
+    private String idAttribute(Class<?> entityClass) {
+        EntityType<?> type = entityManager.getMetamodel().entity(entityClass);
+        Class<?> idType = type.getIdType().getJavaType();
+        if (!INTEGRAL_IDS.contains(idType)) {
+            throw new FilterException("Parallel queries need an integral id, " + entityClass.getSimpleName()
+                    + " has " + idType.getSimpleName());
+        }
+        return type.getId(idType).getName();
+    }
+
+    /**
+     * Ids from {@code from} inclusive to {@code to} exclusive; {@code null} leaves that end open.
+     */
+    private record Range(Long from, Long to) {
+
+        <T> Specification<T> specification(String id) {
+            return (root, cq, cb) -> {
+                Path<Long> path = root.get(id);
+                List<Predicate> bounds = new ArrayList<>(2);
+                if (from != null) {
+                    bounds.add(cb.ge(path, from));
+                }
+                if (to != null) {
+                    bounds.add(cb.lt(path, to));
+                }
+                return cb.and(bounds.toArray(Predicate[]::new));
+            };
+        }
+    }
+
+    private record Partition<T>(List<T> rows, long nanos) {
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.spec.service.parallel;
+
+/**
+ * How the id keyspace is split into the ranges of a parallel query.
+ */
+public enum PartitionBoundaries {
+
+    /**
+     * Ranges of equal width between the smallest and largest id; cheap, but partitions are uneven
+     * when ids are clustered.
+     */
+    MIN_MAX,
+
+    /**
+     * Boundaries are the ids at evenly spaced positions of the id order, so every range holds
+     * about as many rows; costs a count and one pass numbering all ids with
+     * {@code row_number()}, which the database must support.
+     */
+    SAMPLED
+}
@@ -0,0 +1,94 @@
+package com.example.spec.service.projection;
+
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.FieldRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs filters selecting only the requested columns with a criteria {@code multiselect}. Results
+ * are scalar tuples or constructed DTOs, so no managed entities and no dirty-checking snapshots
+ * are created.
+ */
+@RequiredArgsConstructor
+@Component
+public class FilterProjector {
+
+    private final EntityManager entityManager;
+
+    private final FieldRegistry fieldRegistry;
+
+    public List<Tuple> tuples(Class<?> entityClass, CompiledFilter filter, List<String> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<?> root = cq.from(entityClass);
+        cq.multiselect(selections(entityClass, root, fields))
+                .where(filter.toPredicate(root, cb));
+        return entityManager.createQuery(cq).getResultList();
+    }
+
+    public List<Map<String, Object>> maps(Class<?> entityClass, CompiledFilter filter, List<String> fields) {
+        List<Tuple> tuples = tuples(entityClass, filter, fields);
+        List<Map<String, Object>> maps = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                map.put(element.getAlias(), tuple.get(element));
+            }
+            maps.add(map);
+        }
+        return maps;
+    }
+
+    /**
+     * Projects into a record whose component names and order name the selected fields.
+     */
+    public <R> List<R> records(Class<?> entityClass, CompiledFilter filter, Class<R> recordType) {
+        if (!recordType.isRecord()) {
+            throw new FilterException("Record is expected for projection: " + recordType.getName());
+        }
+        List<String> fields = Arrays.stream(recordType.getRecordComponents())
+                .map(RecordComponent::getName)
+                .toList();
+        return dtos(entityClass, filter, recordType, fields);
+    }
+
+    /**
+     * Projects into a DTO with a constructor taking the given fields in order.
+     */
+    public <R> List<R> dtos(Class<?> entityClass, CompiledFilter filter, Class<R> dtoType, List<String> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> cq = cb.createQuery(dtoType);
+        Root<?> root = cq.from(entityClass);
+        cq.select(cb.construct(dtoType, selections(entityClass, root, fields)))
+                .where(filter.toPredicate(root, cb));
+        return entityManager.createQuery(cq).getResultList();
+    }
+
+    private Selection<?>[] selections(Class<?> entityClass, Root<?> root, List<String> fields) {
+        if (fields.isEmpty()) {
+            throw new FilterException("Projection needs at least one field");
+        }
+        Selection<?>[] selections = new Selection<?>[fields.size()];
+        for (int i = 0; i < selections.length; i++) {
+            String field = fieldRegistry.descriptor(entityClass, fields.get(i)).name();
+            selections[i] = root.get(field).alias(field);
+        }
+        return selections;
+    }
+}
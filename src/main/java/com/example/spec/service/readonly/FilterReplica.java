@@ -0,0 +1,47 @@
+package com.example.spec.service.readonly;
+
+import com.example.spec.service.config.FilterProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Connection pool of the read replica serving stateless filter queries, configured by
+ * {@code spec.filter.replica.url}. Kept out of the context as a {@code DataSource} bean so the
+ * primary data source is still auto-configured.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "spec.filter.replica", name = "url")
+public class FilterReplica implements DisposableBean {
+
+    private final HikariDataSource dataSource;
+
+    public FilterReplica(FilterProperties properties) {
+        FilterProperties.Replica replica = properties.getReplica();
+        this.dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword())
+                .build();
+        this.dataSource.setPoolName("filter-replica");
+        this.dataSource.setReadOnly(true);
+        log.info("Stateless filter queries use the read replica {}", replica.getUrl());
+    }
+
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void destroy() {
+        dataSource.close();
+    }
+}
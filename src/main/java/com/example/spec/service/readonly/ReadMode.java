@@ -0,0 +1,28 @@
+package com.example.spec.service.readonly;
+
+/**
+ * How filter queries load entities, set by {@code spec.filter.read-mode}.
+ */
+public enum ReadMode {
+
+    /**
+     * Entities are managed by the persistence context of the caller, with a snapshot of each kept
+     * for dirty checking.
+     */
+    MANAGED,
+
+    /**
+     * Queries run in a read-only transaction and load read-only entities, which keep no snapshot
+     * and are never flushed; the session does not flush before the queries. Queries joining a
+     * read-write transaction load managed entities as in {@link #MANAGED}.
+     */
+    READ_ONLY,
+
+    /**
+     * {@code getAllPersons}, counts and existence checks run in a {@link org.hibernate.StatelessSession}
+     * without any persistence context, on the read replica when one is configured. Other filter
+     * queries run as in {@link #READ_ONLY}, and so do all queries joining a read-write
+     * transaction, which load managed entities.
+     */
+    STATELESS
+}
@@ -0,0 +1,32 @@
+package com.example.spec.service.readonly;
+
+import java.time.Duration;
+
+/**
+ * Cost of one filter query on the managed path compared with a read-only mode.
+ *
+ * @param mode     compared read-only mode
+ * @param rows     number of returned rows
+ * @param managed  cost of loading managed entities in a read-write transaction, commit included
+ * @param readOnly cost of the same query in {@code mode}
+ */
+public record ReadModeReport(ReadMode mode, int rows, Measurement managed, Measurement readOnly) {
+
+    /**
+     * @param time             elapsed time
+     * @param allocatedBytes   bytes allocated by the calling thread, {@code -1} if the JVM cannot
+     *                         measure it
+     * @param trackedEntities  entities held by the persistence context when the query returned
+     * @param snapshots        tracked entities with a snapshot of their state for dirty checking
+     */
+    public record Measurement(Duration time, long allocatedBytes, int trackedEntities, int snapshots) {
+    }
+
+    public Duration timeSaved() {
+        return managed.time().minus(readOnly.time());
+    }
+
+    public long bytesSaved() {
+        return managed.allocatedBytes() < 0 || readOnly.allocatedBytes() < 0 ? -1 : managed.allocatedBytes() - readOnly.allocatedBytes();
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.spec.service.readonly;
+
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.filter.CompiledFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs filter queries without the bookkeeping of managed entities.
+ * <p>
+ * {@link #readOnly} runs a query in a read-only transaction with the session switched to
+ * read-only entities and manual flushing: loaded entities keep no snapshot of their state, are
+ * never dirty checked and the session does not flush before the query. Inside a read-write
+ * transaction the query runs unchanged instead: the caller may modify what it loads, and an
+ * entity loaded read-only stays read-only for the rest of the session, so its changes would be
+ * silently lost. Inside a read-only transaction the session settings are restored afterwards.
+ * <p>
+ * {@link #list}, {@link #count} and {@link #exists} open a {@link StatelessSession}, which has no
+ * persistence context at all and returns detached entities, on a connection of the read replica
+ * when {@code spec.filter.replica.url} is set and on the connection of the current read-only (or a
+ * new read-only) transaction otherwise. Replica reads may lag behind the primary. Inside a
+ * read-write transaction they run on its session instead, like {@link #readOnly}: a stateless
+ * session would neither see its unflushed changes nor, on the replica, its flushed ones.
+ */
+@Slf4j
+@Component
+public class ReadOnlyFilterExecutor {
+
+    private final EntityManager entityManager;
+
+    private final SessionFactory sessionFactory;
+
+    private final ObjectProvider<FilterReplica> replica;
+
+    private final TransactionTemplate readOnlyTemplate;
+
+    private final TransactionTemplate managedComparison;
+
+    private final TransactionTemplate readOnlyComparison;
+
+    @Autowired
+    public ReadOnlyFilterExecutor(EntityManager entityManager, EntityManagerFactory entityManagerFactory,
+                                  PlatformTransactionManager transactionManager, ObjectProvider<FilterReplica> replica) {
+        this.entityManager = entityManager;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.replica = replica;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.managedComparison = new TransactionTemplate(transactionManager);
+        this.managedComparison.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyComparison = new TransactionTemplate(transactionManager);
+        this.readOnlyComparison.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyComparison.setReadOnly(true);
+    }
+
+    /**
+     * Runs the query in a read-only transaction, loading read-only entities without flushing,
+     * unless a read-write transaction is active, which it then joins as is.
+     */
+    public <R> R readOnly(Supplier<R> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query.get();
+        }
+        return readOnlyTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            boolean defaultReadOnly = session.isDefaultReadOnly();
+            FlushMode flushMode = session.getHibernateFlushMode();
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            try {
+                return query.get();
+            } finally {
+                session.setHibernateFlushMode(flushMode);
+                session.setDefaultReadOnly(defaultReadOnly);
+            }
+        });
+    }
+
+    public <T> List<T> list(Class<T> entityClass, Specification<T> specification) {
+        return stateless(session -> list(session, entityClass, specification));
+    }
+
+    public <T> long count(Class<T> entityClass, Specification<T> specification) {
+        return stateless(session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+            Root<T> root = cq.from(entityClass);
+            where(cq.select(cb.count(root)), specification, root, cb);
+            return session.createQuery(cq).getSingleResult();
+        });
+    }
+
+    public <T> boolean exists(Class<T> entityClass, Specification<T> specification) {
+        return stateless(session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+            Root<T> root = cq.from(entityClass);
+            where(cq.select(cb.literal(1)), specification, root, cb);
+            return !session.createQuery(cq).setMaxResults(1).getResultList().isEmpty();
+        });
+    }
+
+    /**
+     * Runs the filter on the managed path, loading managed entities in a read-write transaction,
+     * and in {@code mode}, each in a transaction of its own, and reports the time, the memory
+     * allocated by the calling thread and the entities kept by the persistence context of each.
+     * Both run on the primary database so that they read the same rows.
+     */
+    public <T> ReadModeReport compare(Class<T> entityClass, CompiledFilter filter, ReadMode mode) {
+        if (mode == ReadMode.MANAGED) {
+            throw new FilterException("Read mode " + mode + " cannot be compared with itself");
+        }
+        Specification<T> specification = filter.toSpecification();
+        Measured managed = measure(managedComparison, () -> list(entityManager.unwrap(Session.class), entityClass, specification));
+        Measured readOnly = measure(readOnlyComparison, () -> {
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            return mode == ReadMode.STATELESS
+                    ? session.doReturningWork(connection -> stateless(connection, s -> list(s, entityClass, specification)))
+                    : list(session, entityClass, specification);
+        });
+        if (managed.rows != readOnly.rows) {
+            log.debug("Rows changed while comparing read modes: {} managed, {} {}", managed.rows, readOnly.rows, mode);
+        }
+        return new ReadModeReport(mode, readOnly.rows, managed.measurement, readOnly.measurement);
+    }
+
+    private <R> R stateless(Function<SharedSessionContract, R> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query.apply(entityManager.unwrap(Session.class));
+        }
+        FilterReplica source = replica.getIfAvailable();
+        if (source != null) {
+            try (Connection connection = source.getConnection()) {
+                return stateless(connection, query);
+            } catch (SQLException e) {
+                throw new FilterException("Cannot connect to the read replica", e);
+            }
+        }
+        return readOnlyTemplate.execute(status -> entityManager.unwrap(Session.class)
+                .doReturningWork(connection -> stateless(connection, query)));
+    }
+
+    private <R> R stateless(Connection connection, Function<? super StatelessSession, R> query) {
+        try (StatelessSession session = sessionFactory.withStatelessOptions().connection(connection).openStatelessSession()) {
+            return query.apply(session);
+        }
+    }
+
+    private static <T> List<T> list(SharedSessionContract session, Class<T> entityClass, Specification<T> specification) {
+        CriteriaBuilder cb = session.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(entityClass);
+        Root<T> root = cq.from(entityClass);
+        where(cq.select(root), specification, root, cb);
+        return session.createQuery(cq).getResultList();
+    }
+
+    private static <T> void where(CriteriaQuery<?> cq, Specification<T> specification, Root<T> root, CriteriaBuilder cb) {
+        Predicate predicate = specification.toPredicate(root, cq, cb);
+        if (predicate != null) {
+            cq.where(predicate);
+        }
+    }
+
+    private Measured measure(TransactionTemplate template, Supplier<List<?>> query) {
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        Measured measured = template.execute(status -> {
+            int rows = query.get().size();
+            PersistenceContext context = entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+            int snapshots = 0;
+            for (Map.Entry<Object, EntityEntry> entry : context.reentrantSafeEntityEntries()) {
+                if (!entry.getValue().isReadOnly()) {
+                    snapshots++;
+                }
+            }
+            return new Measured(rows, new ReadModeReport.Measurement(null, 0, context.getNumberOfManagedEntities(), snapshots));
+        });
+        Duration time = Duration.ofNanos(System.nanoTime() - start);
+        long bytes = allocated < 0 ? -1 : allocatedBytes() - allocated;
+        ReadModeReport.Measurement counted = measured.measurement;
+        return new Measured(measured.rows, new ReadModeReport.Measurement(time, bytes, counted.trackedEntities(), counted.snapshots()));
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean allocation && allocation.isThreadAllocatedMemoryEnabled()) {
+            return allocation.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private record Measured(int rows, ReadModeReport.Measurement measurement) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.spec.service.stream;
+
+/**
+ * Output formats of {@link PersonExportWriter}.
+ */
+public enum ExportFormat {
+    /**
+     * One JSON object per line.
+     */
+    NDJSON,
+    /**
+     * Comma separated values with a header line.
+     */
+    CSV
+}
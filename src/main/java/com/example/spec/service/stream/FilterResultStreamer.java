@@ -0,0 +1,47 @@
+package com.example.spec.service.stream;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.filter.CompiledFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Streams the rows matching a filter with a bounded memory footprint: rows are fetched from a
+ * forward-only scroll with the configured JDBC fetch size and every entity is detached as soon as
+ * it is emitted, so the persistence context does not grow with the result.
+ * <p>
+ * The stream must be consumed and closed inside a transaction; PostgreSQL only honours the fetch
+ * size with auto-commit disabled.
+ */
+@RequiredArgsConstructor
+@Component
+public class FilterResultStreamer {
+
+    private final EntityManager entityManager;
+
+    private final FilterProperties properties;
+
+    public <T> Stream<T> stream(Class<T> entityClass, CompiledFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(entityClass);
+        Root<T> root = cq.from(entityClass);
+        cq.select(root).where(filter.toPredicate(root, cb));
+
+        return entityManager.createQuery(cq)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, properties.getStreamFetchSize())
+                .getResultStream()
+                .map(this::detach);
+    }
+
+    private <T> T detach(T entity) {
+        entityManager.detach(entity);
+        return entity;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.spec.service.stream;
+
+import com.example.spec.service.entity.Person;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes persons one by one to an {@link OutputStream}, so exports never hold more than the row
+ * being written. Closing the writer flushes it but leaves the stream open.
+ */
+public abstract class PersonExportWriter implements Consumer<Person>, Closeable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private long rows;
+
+    public static PersonExportWriter of(ExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdJson(out);
+            case CSV -> new Csv(out);
+        };
+    }
+
+    @Override
+    public void accept(Person person) {
+        try {
+            write(person);
+            rows++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    protected abstract void write(Person person) throws IOException;
+
+    private static final class NdJson extends PersonExportWriter {
+
+        private final JsonGenerator generator;
+
+        private NdJson(OutputStream out) throws IOException {
+            generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        protected void write(Person person) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", person.getId());
+            generator.writeStringField("name", person.getName());
+            generator.writeNumberField("age", person.getAge());
+            generator.writeNumberField("score", person.getScore());
+            generator.writeStringField("date", person.getDate() == null ? null : person.getDate().toString());
+            if (person.getEnrolled() == null) {
+                generator.writeNullField("enrolled");
+            } else {
+                generator.writeBooleanField("enrolled", person.getEnrolled());
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class Csv extends PersonExportWriter {
+
+        private final Writer writer;
+
+        private Csv(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,name,age,score,date,enrolled\n");
+        }
+
+        @Override
+        protected void write(Person person) throws IOException {
+            writer.write(String.valueOf(person.getId()));
+            writer.write(',');
+            writeText(person.getName());
+            writer.write(',');
+            writer.write(Integer.toString(person.getAge()));
+            writer.write(',');
+            writeValue(person.getScore() == null ? null : person.getScore().toPlainString());
+            writer.write(',');
+            writeValue(person.getDate() == null ? null : person.getDate().toString());
+            writer.write(',');
+            writeValue(person.getEnrolled() == null ? null : person.getEnrolled().toString());
+            writer.write('\n');
+        }
+
+        private void writeValue(String value) throws IOException {
+            if (value != null) {
+                writer.write(value);
+            }
+        }
+
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
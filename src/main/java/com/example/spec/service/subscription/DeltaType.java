@@ -0,0 +1,22 @@
+package com.example.spec.service.subscription;
+
+/**
+ * Kind of change of the set of entities matched by a subscription.
+ */
+public enum DeltaType {
+
+    /**
+     * An entity that did not match the filter was saved and now matches it.
+     */
+    ENTER,
+
+    /**
+     * A matching entity was saved and still matches.
+     */
+    UPDATE,
+
+    /**
+     * A matching entity was saved and no longer matches, or was deleted.
+     */
+    LEAVE
+}
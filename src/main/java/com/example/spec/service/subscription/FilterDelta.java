@@ -0,0 +1,9 @@
+package com.example.spec.service.subscription;
+
+/**
+ * One committed change of the entities matched by a subscription. {@code entity} is the state
+ * that was committed, for {@link DeltaType#LEAVE} the state that no longer matches or the deleted
+ * entity; it is shared by all subscribers and must not be modified.
+ */
+public record FilterDelta<T>(DeltaType type, Object id, T entity) {
+}
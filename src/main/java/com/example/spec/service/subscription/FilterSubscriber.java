@@ -0,0 +1,18 @@
+package com.example.spec.service.subscription;
+
+import java.util.List;
+
+/**
+ * Receiver of the entities matched by a subscription. Deltas are delivered on a thread committing
+ * a change, one at a time and in commit order, so subscribers should return quickly; their
+ * exceptions are logged and otherwise ignored. The delivered entities are detached copies.
+ */
+public interface FilterSubscriber<T> {
+
+    /**
+     * Receives the entities matching the filter when subscribing, before any delta.
+     */
+    void onSnapshot(List<T> matches);
+
+    void onDelta(FilterDelta<T> delta);
+}
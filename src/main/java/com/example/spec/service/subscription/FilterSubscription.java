@@ -0,0 +1,123 @@
+package com.example.spec.service.subscription;
+
+import com.example.spec.service.filter.CompiledFilter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Handle of an active subscription; closing it stops the deltas.
+ */
+public final class FilterSubscription implements AutoCloseable {
+
+    private final FilterSubscriptionRegistry registry;
+
+    private final long id;
+
+    final Class<?> entityClass;
+
+    final CompiledFilter filter;
+
+    final Predicate<Object> predicate;
+
+    final FilterSubscriber<Object> subscriber;
+
+    /**
+     * Ids of the matched entities; guarded by the registry.
+     */
+    final Set<Object> members = new HashSet<>();
+
+    /**
+     * Changes committed while the snapshot is loaded, {@code null} once it was delivered; guarded
+     * by the registry.
+     */
+    List<FilterSubscriptionRegistry.Change> pending = new ArrayList<>();
+
+    volatile boolean active = true;
+
+    /**
+     * Deliveries not yet made, queued under the registry lock and made outside of it; guarded by
+     * itself.
+     */
+    private final ArrayDeque<Runnable> deliveries = new ArrayDeque<>();
+
+    private boolean delivering;
+
+    FilterSubscription(FilterSubscriptionRegistry registry, long id, Class<?> entityClass, CompiledFilter filter,
+                       Predicate<Object> predicate, FilterSubscriber<Object> subscriber) {
+        this.registry = registry;
+        this.id = id;
+        this.entityClass = entityClass;
+        this.filter = filter;
+        this.predicate = predicate;
+        this.subscriber = subscriber;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public CompiledFilter filter() {
+        return filter;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Number of entities currently matching the filter.
+     */
+    public int matches() {
+        synchronized (registry) {
+            return members.size();
+        }
+    }
+
+    public void cancel() {
+        registry.cancel(this);
+    }
+
+    @Override
+    public void close() {
+        cancel();
+    }
+
+    void enqueue(Runnable delivery) {
+        synchronized (deliveries) {
+            deliveries.add(delivery);
+        }
+    }
+
+    /**
+     * Makes the queued deliveries in order, unless another thread is already making them.
+     */
+    void deliver() {
+        synchronized (deliveries) {
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        while (true) {
+            Runnable delivery;
+            synchronized (deliveries) {
+                delivery = deliveries.poll();
+                if (delivery == null) {
+                    delivering = false;
+                    return;
+                }
+            }
+            delivery.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FilterSubscription[" + id + ": " + filter.shape() + ']';
+    }
+}
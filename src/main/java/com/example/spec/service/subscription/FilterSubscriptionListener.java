@@ -0,0 +1,33 @@
+package com.example.spec.service.subscription;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener reporting inserted, updated and deleted entities, including those saved
+ * through {@code PersonRepository}, to the {@link FilterSubscriptionRegistry}.
+ * <p>
+ * Instantiated by Spring through Hibernate's bean container; the registry is looked up lazily as
+ * it depends on the entity manager factory.
+ */
+@RequiredArgsConstructor
+@Component
+public class FilterSubscriptionListener {
+
+    private final ObjectProvider<FilterSubscriptionRegistry> registry;
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        registry.getObject().changed(entity, false);
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        registry.getObject().changed(entity, true);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.spec.service.subscription;
+
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.EntityCopier;
+import com.example.spec.service.filter.FieldRegistry;
+import com.example.spec.service.filter.InMemoryFilterCompiler;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Active filter subscriptions and the dispatch of committed entity changes to them.
+ * <p>
+ * Changes reported by the {@link FilterSubscriptionListener} are copied as they are flushed and
+ * collected per transaction, the last state of each entity winning, and matched after the commit
+ * against the subscriptions of the {@link SubscriptionIndex}; rolled back changes are dropped.
+ * Matching happens under the registry lock, which only queues the deliveries of each
+ * subscription; they are made after the lock is released. Each subscription tracks the ids of
+ * its matching entities to tell entering, updated and leaving entities apart, so it holds one id
+ * per match. Bulk statements bypass entity listeners and are not reported.
+ * <p>
+ * A subscription is indexed before its snapshot is loaded and the changes committed meanwhile
+ * are applied after the snapshot was delivered, so no change is lost; a change already contained
+ * in the snapshot is reported as an update.
+ */
+@Slf4j
+@Component
+public class FilterSubscriptionRegistry {
+
+    private final InMemoryFilterCompiler inMemoryFilterCompiler;
+
+    private final FieldRegistry fieldRegistry;
+
+    private final PersistenceUnitUtil persistenceUnitUtil;
+
+    private final EntityCopier copier;
+
+    private final Map<Class<?>, SubscriptionIndex> indexes = new HashMap<>();
+
+    /**
+     * Subscriptions whose snapshot is being loaded.
+     */
+    private final Set<FilterSubscription> loading = new LinkedHashSet<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @Autowired
+    public FilterSubscriptionRegistry(InMemoryFilterCompiler inMemoryFilterCompiler, FieldRegistry fieldRegistry,
+                                      EntityManagerFactory entityManagerFactory, EntityCopier copier) {
+        this.inMemoryFilterCompiler = inMemoryFilterCompiler;
+        this.fieldRegistry = fieldRegistry;
+        this.persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+        this.copier = copier;
+    }
+
+    /**
+     * Subscribes to the entities matching the filter; {@code snapshot} loads the currently
+     * matching entities delivered to {@link FilterSubscriber#onSnapshot}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> FilterSubscription subscribe(Class<T> entityClass, CompiledFilter filter, Supplier<List<T>> snapshot,
+                                            FilterSubscriber<? super T> subscriber) {
+        Predicate<Object> predicate = inMemoryFilterCompiler.compile((Class<Object>) entityClass, filter);
+        FilterSubscription subscription = new FilterSubscription(this, ids.incrementAndGet(), entityClass, filter,
+                predicate, (FilterSubscriber<Object>) subscriber);
+        synchronized (this) {
+            index(entityClass).add(subscription, condition -> inMemoryFilterCompiler.compile((Class<Object>) entityClass, condition));
+            loading.add(subscription);
+        }
+        List<T> matches;
+        try {
+            matches = snapshot.get();
+        } catch (RuntimeException e) {
+            cancel(subscription);
+            throw e;
+        }
+        synchronized (this) {
+            if (!subscription.active) {
+                return subscription;
+            }
+            SubscriptionIndex index = indexes.get(entityClass);
+            List<Object> copies = new ArrayList<>(matches.size());
+            for (T match : matches) {
+                index.join(subscription, persistenceUnitUtil.getIdentifier(match));
+                copies.add(copier.copy(match));
+            }
+            enqueue(subscription, () -> subscription.subscriber.onSnapshot(List.copyOf(copies)));
+            loading.remove(subscription);
+            List<Change> pending = subscription.pending;
+            subscription.pending = null;
+            for (Change change : pending) {
+                apply(index, subscription, change);
+            }
+        }
+        subscription.deliver();
+        log.debug("Subscribed {} with {} matches", subscription, matches.size());
+        return subscription;
+    }
+
+    /**
+     * Number of active subscriptions.
+     */
+    public synchronized int size() {
+        return indexes.values().stream().mapToInt(index -> index.subscriptions().size()).sum();
+    }
+
+    synchronized void cancel(FilterSubscription subscription) {
+        if (!subscription.active) {
+            return;
+        }
+        subscription.active = false;
+        loading.remove(subscription);
+        SubscriptionIndex index = indexes.get(subscription.entityClass);
+        index.remove(subscription);
+        if (index.isEmpty()) {
+            indexes.remove(subscription.entityClass);
+        }
+    }
+
+    /**
+     * Records a saved or deleted entity, published when its transaction commits or at once
+     * outside of transactions.
+     */
+    void changed(Object entity, boolean removed) {
+        Change change = new Change(Hibernate.getClass(entity), persistenceUnitUtil.getIdentifier(entity), copier.copy(entity), removed);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(change));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<List<Object>, Change> changes = (Map<List<Object>, Change>) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Map<List<Object>, Change> committed = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, committed);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FilterSubscriptionRegistry.this);
+                    if (status == STATUS_COMMITTED) {
+                        publish(committed.values());
+                    }
+                }
+            });
+            changes = committed;
+        }
+        changes.put(List.of(change.entityClass(), change.id()), change);
+    }
+
+    private void publish(Collection<Change> changes) {
+        Set<FilterSubscription> notified = new LinkedHashSet<>();
+        synchronized (this) {
+            for (Change change : changes) {
+                SubscriptionIndex index = indexes.get(change.entityClass());
+                if (index == null) {
+                    continue;
+                }
+                for (FilterSubscription subscription : loading) {
+                    if (subscription.entityClass == change.entityClass()) {
+                        subscription.pending.add(change);
+                    }
+                }
+                for (FilterSubscription subscription : index.candidates(change.id(), change.removed() ? null : change.entity())) {
+                    if (subscription.pending == null && apply(index, subscription, change)) {
+                        notified.add(subscription);
+                    }
+                }
+            }
+        }
+        notified.forEach(FilterSubscription::deliver);
+    }
+
+    /**
+     * Queues the delta of the change, if any, and tells whether there was one.
+     */
+    private boolean apply(SubscriptionIndex index, FilterSubscription subscription, Change change) {
+        if (!subscription.active) {
+            return false;
+        }
+        boolean matched = subscription.members.contains(change.id());
+        boolean matches = !change.removed() && subscription.predicate.test(change.entity());
+        if (matches) {
+            index.join(subscription, change.id());
+            delta(subscription, matched ? DeltaType.UPDATE : DeltaType.ENTER, change);
+            return true;
+        }
+        if (matched) {
+            subscription.members.remove(change.id());
+            index.leave(subscription, change.id());
+            delta(subscription, DeltaType.LEAVE, change);
+            return true;
+        }
+        return false;
+    }
+
+    private static void delta(FilterSubscription subscription, DeltaType type, Change change) {
+        enqueue(subscription, () -> subscription.subscriber.onDelta(new FilterDelta<>(type, change.id(), change.entity())));
+    }
+
+    /**
+     * Deliveries to cancelled subscriptions are dropped.
+     */
+    private static void enqueue(FilterSubscription subscription, Runnable delivery) {
+        subscription.enqueue(() -> {
+            if (!subscription.active) {
+                return;
+            }
+            try {
+                delivery.run();
+            } catch (RuntimeException e) {
+                log.warn("Subscriber of {} failed", subscription, e);
+            }
+        });
+    }
+
+    private SubscriptionIndex index(Class<?> entityClass) {
+        return indexes.computeIfAbsent(entityClass,
+                type -> new SubscriptionIndex(field -> fieldRegistry.descriptor(type, field).requireAccessor()));
+    }
+
+    /**
+     * A changed entity; {@code entity} is a copy of its state when the change was flushed.
+     */
+    record Change(Class<?> entityClass, Object id, Object entity, boolean removed) {
+    }
+}
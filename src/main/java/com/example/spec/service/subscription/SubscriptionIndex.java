@@ -0,0 +1,195 @@
+package com.example.spec.service.subscription;
+
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.filter.Logic;
+import com.example.spec.service.filter.Operator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Subscriptions of one entity class indexed by the fields of their filters, so a changed entity
+ * is only matched against the subscriptions it can affect.
+ * <p>
+ * Every subscription is registered under anchor conditions, at least one of which holds for any
+ * entity matching its filter: a condition is its own anchor, an {@code OR} is anchored by the
+ * anchors of all its children and an {@code AND} by those of its most selective child, preferring
+ * equalities. Equality and {@code in} anchors are looked up by the value of their field, other
+ * anchors are tested one by one among the anchors of their field. Only filters matching
+ * everything have no anchor. A change is matched against the subscriptions found by its new state
+ * and those that matched the entity before, which are tracked by id.
+ * <p>
+ * Not thread-safe; guarded by the {@link FilterSubscriptionRegistry}.
+ */
+final class SubscriptionIndex {
+
+    private final Function<String, Function<Object, Object>> accessors;
+
+    private final Map<String, Map<Object, Set<FilterSubscription>>> equalities = new HashMap<>();
+
+    private final Map<String, List<FieldTest>> fieldTests = new HashMap<>();
+
+    private final Set<FilterSubscription> unanchored = new LinkedHashSet<>();
+
+    private final Map<Object, Set<FilterSubscription>> members = new HashMap<>();
+
+    private final Set<FilterSubscription> subscriptions = new LinkedHashSet<>();
+
+    SubscriptionIndex(Function<String, Function<Object, Object>> accessors) {
+        this.accessors = accessors;
+    }
+
+    void add(FilterSubscription subscription, Function<FilterNode.Condition, Predicate<Object>> compiler) {
+        subscriptions.add(subscription);
+        List<FilterNode.Condition> anchors = anchors(subscription.filter.root());
+        if (anchors == null) {
+            unanchored.add(subscription);
+            return;
+        }
+        for (FilterNode.Condition anchor : anchors) {
+            if (isEquality(anchor)) {
+                Map<Object, Set<FilterSubscription>> byValue = equalities.computeIfAbsent(anchor.field(), field -> new HashMap<>());
+                for (Object value : values(anchor)) {
+                    byValue.computeIfAbsent(key(value), key -> new LinkedHashSet<>()).add(subscription);
+                }
+            } else {
+                fieldTests.computeIfAbsent(anchor.field(), field -> new ArrayList<>())
+                        .add(new FieldTest(subscription, compiler.apply(anchor)));
+            }
+        }
+    }
+
+    void remove(FilterSubscription subscription) {
+        subscriptions.remove(subscription);
+        unanchored.remove(subscription);
+        equalities.values().removeIf(byValue -> {
+            byValue.values().removeIf(matching -> matching.remove(subscription) && matching.isEmpty());
+            return byValue.isEmpty();
+        });
+        fieldTests.values().removeIf(tests -> {
+            tests.removeIf(test -> test.subscription() == subscription);
+            return tests.isEmpty();
+        });
+        for (Object id : subscription.members) {
+            leave(subscription, id);
+        }
+        subscription.members.clear();
+    }
+
+    boolean isEmpty() {
+        return subscriptions.isEmpty();
+    }
+
+    Collection<FilterSubscription> subscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * Subscriptions that may match {@code entity}, {@code null} for a deleted entity, or that
+     * matched the entity with the given id before.
+     */
+    Set<FilterSubscription> candidates(Object id, Object entity) {
+        Set<FilterSubscription> candidates = new LinkedHashSet<>(members.getOrDefault(id, Set.of()));
+        if (entity == null) {
+            return candidates;
+        }
+        candidates.addAll(unanchored);
+        equalities.forEach((field, byValue) -> {
+            Set<FilterSubscription> matching = byValue.get(key(accessors.apply(field).apply(entity)));
+            if (matching != null) {
+                candidates.addAll(matching);
+            }
+        });
+        fieldTests.forEach((field, tests) -> {
+            for (FieldTest test : tests) {
+                if (!candidates.contains(test.subscription()) && test.predicate().test(entity)) {
+                    candidates.add(test.subscription());
+                }
+            }
+        });
+        return candidates;
+    }
+
+    void join(FilterSubscription subscription, Object id) {
+        if (subscription.members.add(id)) {
+            members.computeIfAbsent(id, key -> new LinkedHashSet<>()).add(subscription);
+        }
+    }
+
+    void leave(FilterSubscription subscription, Object id) {
+        Set<FilterSubscription> matching = members.get(id);
+        if (matching != null && matching.remove(subscription) && matching.isEmpty()) {
+            members.remove(id);
+        }
+    }
+
+    /**
+     * Anchor conditions of the node, empty if it matches nothing and {@code null} if it can match
+     * any entity.
+     */
+    static List<FilterNode.Condition> anchors(FilterNode node) {
+        if (node instanceof FilterNode.Condition condition) {
+            return List.of(condition);
+        }
+        if (node instanceof FilterNode.Constant constant) {
+            return constant.value() ? null : List.of();
+        }
+        FilterNode.Junction junction = (FilterNode.Junction) node;
+        if (junction.logic() == Logic.OR) {
+            List<FilterNode.Condition> anchors = new ArrayList<>();
+            for (FilterNode child : junction.children()) {
+                List<FilterNode.Condition> childAnchors = anchors(child);
+                if (childAnchors == null) {
+                    return null;
+                }
+                anchors.addAll(childAnchors);
+            }
+            return anchors;
+        }
+        List<FilterNode.Condition> best = null;
+        for (FilterNode child : junction.children()) {
+            List<FilterNode.Condition> childAnchors = anchors(child);
+            if (childAnchors != null && (best == null || cost(childAnchors) < cost(best))) {
+                best = childAnchors;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Anchors tested one by one cost more than any number of looked up ones.
+     */
+    private static long cost(List<FilterNode.Condition> anchors) {
+        long cost = 0;
+        for (FilterNode.Condition anchor : anchors) {
+            cost += isEquality(anchor) ? 1 : 1_000_000;
+        }
+        return cost;
+    }
+
+    private static boolean isEquality(FilterNode.Condition condition) {
+        return condition.operator() == Operator.EQ && condition.value() != null || condition.operator() == Operator.IN;
+    }
+
+    private static Collection<?> values(FilterNode.Condition condition) {
+        return condition.operator() == Operator.IN ? (Collection<?>) condition.value() : List.of(condition.value());
+    }
+
+    /**
+     * Numbers compare by value, as in the filter language ({@code 22.0 eq 22.00}).
+     */
+    private static Object key(Object value) {
+        return value instanceof BigDecimal decimal ? decimal.stripTrailingZeros() : value;
+    }
+
+    private record FieldTest(FilterSubscription subscription, Predicate<Object> predicate) {
+    }
+}
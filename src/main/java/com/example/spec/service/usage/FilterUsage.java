@@ -0,0 +1,35 @@
+package com.example.spec.service.usage;
+
+import com.example.spec.service.filter.Operator;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Snapshot of the filter usage of one entity since startup or the last reset, most frequent
+ * first. Times are the elapsed times of the queries the predicate or field set took part in.
+ */
+public record FilterUsage(List<PredicateUsage> predicates, List<FieldSetUsage> fieldSets) {
+
+    /**
+     * Use of one operator on one field.
+     */
+    public record PredicateUsage(String field, Operator operator, long queries, Duration totalTime, Duration maxTime) {
+
+        public Duration meanTime() {
+            return queries == 0 ? Duration.ZERO : totalTime.dividedBy(queries);
+        }
+    }
+
+    /**
+     * Fields ANDed together in one conjunction, split into those compared for equality
+     * ({@code eq}, {@code in}) and those compared by range, each sorted by name. Negated
+     * predicates are left out since indexes do not help them.
+     */
+    public record FieldSetUsage(List<String> equalities, List<String> ranges, long queries, Duration totalTime, Duration maxTime) {
+
+        public int size() {
+            return equalities.size() + ranges.size();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.spec.service.usage;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.filter.Logic;
+import com.example.spec.service.filter.Operator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on collector of which fields, operators and field combinations executed filters use,
+ * and how long their queries took. Recording is a walk of the compiled filter and a few
+ * uncontended adder increments; the number of distinct keys is bounded by
+ * {@code spec.filter.usage.max-tracked-keys}, further new keys are not tracked.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class FilterUsageCollector {
+
+    private final FilterProperties properties;
+
+    private final Map<PredicateKey, Stats> predicates = new ConcurrentHashMap<>();
+
+    private final Map<FieldSetKey, Stats> fieldSets = new ConcurrentHashMap<>();
+
+    public void record(Class<?> entityClass, FilterNode root, long elapsedNanos) {
+        if (!properties.getUsage().isEnabled()) {
+            return;
+        }
+        if (root instanceof FilterNode.Condition condition) {
+            conjunction(entityClass, List.of(condition), elapsedNanos);
+        }
+        visit(entityClass, root, elapsedNanos);
+    }
+
+    public FilterUsage usage(Class<?> entityClass) {
+        List<FilterUsage.PredicateUsage> predicateUsages = new ArrayList<>();
+        predicates.forEach((key, stats) -> {
+            if (key.entityClass() == entityClass) {
+                predicateUsages.add(new FilterUsage.PredicateUsage(key.field(), key.operator(), stats.queries.sum(),
+                        Duration.ofNanos(stats.nanos.sum()), Duration.ofNanos(stats.max.get())));
+            }
+        });
+        predicateUsages.sort(Comparator.comparingLong(FilterUsage.PredicateUsage::queries).reversed());
+
+        List<FilterUsage.FieldSetUsage> fieldSetUsages = new ArrayList<>();
+        fieldSets.forEach((key, stats) -> {
+            if (key.entityClass() == entityClass) {
+                fieldSetUsages.add(new FilterUsage.FieldSetUsage(key.equalities(), key.ranges(), stats.queries.sum(),
+                        Duration.ofNanos(stats.nanos.sum()), Duration.ofNanos(stats.max.get())));
+            }
+        });
+        fieldSetUsages.sort(Comparator.comparingLong(FilterUsage.FieldSetUsage::queries).reversed());
+        return new FilterUsage(List.copyOf(predicateUsages), List.copyOf(fieldSetUsages));
+    }
+
+    public void reset() {
+        predicates.clear();
+        fieldSets.clear();
+    }
+
+    private void visit(Class<?> entityClass, FilterNode node, long elapsedNanos) {
+        if (node instanceof FilterNode.Condition condition) {
+            stats(predicates, new PredicateKey(entityClass, condition.field(), condition.operator())).add(elapsedNanos);
+        } else if (node instanceof FilterNode.Junction junction) {
+            List<FilterNode.Condition> conditions = new ArrayList<>();
+            for (FilterNode child : junction.children()) {
+                if (child instanceof FilterNode.Condition condition) {
+                    conditions.add(condition);
+                }
+                visit(entityClass, child, elapsedNanos);
+            }
+            if (junction.logic() == Logic.AND) {
+                conjunction(entityClass, conditions, elapsedNanos);
+            } else {
+                conditions.forEach(condition -> conjunction(entityClass, List.of(condition), elapsedNanos));
+            }
+        }
+    }
+
+    private void conjunction(Class<?> entityClass, List<FilterNode.Condition> conditions, long elapsedNanos) {
+        TreeSet<String> equalities = new TreeSet<>();
+        TreeSet<String> ranges = new TreeSet<>();
+        for (FilterNode.Condition condition : conditions) {
+            if (condition.operator() == Operator.EQ || condition.operator() == Operator.IN) {
+                equalities.add(condition.field());
+            } else if (condition.operator().isRange()) {
+                ranges.add(condition.field());
+            }
+        }
+        ranges.removeAll(equalities);
+        if (!equalities.isEmpty() || !ranges.isEmpty()) {
+            stats(fieldSets, new FieldSetKey(entityClass, List.copyOf(equalities), List.copyOf(ranges))).add(elapsedNanos);
+        }
+    }
+
+    private <K> Stats stats(Map<K, Stats> map, K key) {
+        Stats stats = map.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        if (map.size() >= properties.getUsage().getMaxTrackedKeys()) {
+            log.trace("Usage of {} is not tracked, too many keys", key);
+            return Stats.IGNORED;
+        }
+        return map.computeIfAbsent(key, ignored -> new Stats());
+    }
+
+    private record PredicateKey(Class<?> entityClass, String field, Operator operator) {
+    }
+
+    private record FieldSetKey(Class<?> entityClass, List<String> equalities, List<String> ranges) {
+    }
+
+    private static class Stats {
+
+        static final Stats IGNORED = new Stats() {
+            @Override
+            void add(long elapsedNanos) {
+            }
+        };
+
+        final LongAdder queries = new LongAdder();
+
+        final LongAdder nanos = new LongAdder();
+
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void add(long elapsedNanos) {
+            queries.increment();
+            nanos.add(elapsedNanos);
+            max.accumulate(elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.spec.service.usage;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.cost.TableMetadata;
+import com.example.spec.service.filter.Operator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Proposes indexes from the {@link FilterUsageCollector} statistics.
+ * <p>
+ * Candidates are single-column indexes on fields filtered by {@code eq}, {@code in} or a range,
+ * and composite indexes on fields ANDed together: the equality fields followed by one range
+ * field, at most {@code spec.filter.usage.max-index-columns} columns. The benefit of a candidate
+ * is the observed time in milliseconds of the queries it could serve, multiplied by its number
+ * of columns since a composite index also spares filtering the rows found through its leading
+ * column. A composite index serves queries on its leading column too, so it absorbs the
+ * single-column candidate on that column. Candidates already covered by a prefix of an
+ * existing index are skipped. Recommendations are ordered by decreasing benefit.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class IndexAdvisor {
+
+    private static final Set<Operator> INDEXABLE = EnumSet.of(Operator.EQ, Operator.IN, Operator.GT, Operator.GE, Operator.LT, Operator.LE);
+
+    private final FilterUsageCollector collector;
+
+    private final TableMetadata tableMetadata;
+
+    private final FilterProperties properties;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<IndexRecommendation> advise(Class<?> entityClass) {
+        FilterUsage usage = collector.usage(entityClass);
+        TableMetadata.Table table = tableMetadata.table(entityClass);
+        int maxColumns = properties.getUsage().getMaxIndexColumns();
+
+        Map<String, long[]> singles = new LinkedHashMap<>();
+        for (FilterUsage.PredicateUsage predicate : usage.predicates()) {
+            if (INDEXABLE.contains(predicate.operator())) {
+                long[] totals = singles.computeIfAbsent(predicate.field(), field -> new long[2]);
+                totals[0] += predicate.queries();
+                totals[1] += predicate.totalTime().toNanos();
+            }
+        }
+
+        Map<List<String>, Candidate> candidates = new HashMap<>();
+        for (FilterUsage.FieldSetUsage fieldSet : usage.fieldSets()) {
+            List<String> fields = new ArrayList<>(fieldSet.equalities());
+            if (!fieldSet.ranges().isEmpty()) {
+                fields.add(fieldSet.ranges().get(0));
+            }
+            fields = fields.subList(0, Math.min(fields.size(), maxColumns));
+            if (fields.size() > 1) {
+                candidates.computeIfAbsent(List.copyOf(fields), Candidate::new)
+                        .add(fieldSet.queries(), fieldSet.totalTime().toNanos() * fields.size());
+            }
+        }
+        candidates.values().removeIf(candidate -> covered(table, candidate.fields));
+        for (Candidate composite : List.copyOf(candidates.values())) {
+            long[] single = singles.remove(composite.fields.get(0));
+            if (single != null) {
+                composite.add(single[0], single[1]);
+            }
+        }
+        singles.forEach((field, totals) -> {
+            Candidate candidate = new Candidate(List.of(field));
+            candidate.add(totals[0], totals[1]);
+            if (!covered(table, candidate.fields)) {
+                candidates.put(candidate.fields, candidate);
+            }
+        });
+
+        return candidates.values().stream()
+                .sorted(Comparator.comparingLong((Candidate candidate) -> candidate.nanos).reversed())
+                .map(candidate -> recommend(table, candidate))
+                .toList();
+    }
+
+    /**
+     * Creates the index of a recommendation.
+     */
+    public void apply(IndexRecommendation recommendation) {
+        log.info("Creating index: {}", recommendation.ddl());
+        jdbcTemplate.execute(recommendation.ddl());
+        tableMetadata.refresh();
+    }
+
+    private static boolean covered(TableMetadata.Table table, List<String> fields) {
+        return table.indexes().stream()
+                .anyMatch(index -> index.size() >= fields.size() && index.subList(0, fields.size()).equals(fields));
+    }
+
+    private static IndexRecommendation recommend(TableMetadata.Table table, Candidate candidate) {
+        List<String> columns = candidate.fields.stream().map(table.columns()::get).toList();
+        String name = table.name() + '_' + String.join("_", columns) + "_idx";
+        String ddl = "CREATE INDEX %s ON %s (%s)".formatted(name, table.name(), String.join(", ", columns));
+        return new IndexRecommendation(table.name(), candidate.fields, columns, candidate.queries, candidate.nanos / 1e6, ddl);
+    }
+
+    private static final class Candidate {
+
+        private final List<String> fields;
+
+        private long queries;
+
+        private long nanos;
+
+        Candidate(List<String> fields) {
+            this.fields = fields;
+        }
+
+        void add(long queries, long nanos) {
+            this.queries += queries;
+            this.nanos += nanos;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.spec.service.usage;
+
+import java.util.List;
+
+/**
+ * Index proposed by the {@link IndexAdvisor}.
+ *
+ * @param table   indexed table
+ * @param fields  indexed entity fields, in index column order
+ * @param columns indexed columns, in index order
+ * @param queries number of observed queries the index could serve
+ * @param benefit estimated benefit in milliseconds of observed query time, see
+ *                {@link IndexAdvisor}
+ * @param ddl     statement creating the index
+ */
+public record IndexRecommendation(String table, List<String> fields, List<String> columns, long queries, double benefit, String ddl) {
+}
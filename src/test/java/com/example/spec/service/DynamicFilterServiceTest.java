@@ -1,16 +1,59 @@
 package com.example.spec.service;
 
+import com.example.spec.service.aggregate.Aggregate;
+import com.example.spec.service.aggregate.AggregationRequest;
+import com.example.spec.service.cache.CacheMode;
+import com.example.spec.service.cache.FilterCacheStats;
+import com.example.spec.service.cache.FilterResultCache;
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.cost.FilterAdmission;
+import com.example.spec.service.cost.FilterCost;
 import com.example.spec.service.entity.Person;
+import com.example.spec.service.exception.FilterException;
+import com.example.spec.service.exception.FilterRejectedException;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.FieldRegistry;
+import com.example.spec.service.filter.FilterCompiler;
+import com.example.spec.service.filter.Operator;
+import com.example.spec.service.metrics.FilterExplanation;
+import com.example.spec.service.page.KeysetPage;
+import com.example.spec.service.page.KeysetPageRequest;
+import com.example.spec.service.repository.PersonRepository;
+import com.example.spec.service.stream.ExportFormat;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,6 +66,30 @@ class DynamicFilterServiceTest {
     @Autowired
     private DynamicFilterService treeWalker;
 
+    @Autowired
+    private FilterCompiler filterCompiler;
+
+    @Autowired
+    private FieldRegistry fieldRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private FilterResultCache resultCache;
+
+    @Autowired
+    private FilterProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private FilterAdmission admission;
+
     @Test
     void test1() throws IOException {
         JsonNode node = treeWalker.convertJSONToNode("""
@@ -273,4 +340,608 @@ class DynamicFilterServiceTest {
 
         assertEquals(2, list.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void test13() throws IOException {
+        CompiledFilter first = treeWalker.compile(treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"gt": 10}}, {"name": {"in": ["Celine", "Alice"]}}]}
+                """));
+        int plans = filterCompiler.cachedPlans();
+        CompiledFilter second = treeWalker.compile(treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"gt": 4}}, {"name": {"in": ["Carol"]}}]}
+                """));
+
+        assertEquals("AND(age gt ?,name in [?])", first.shape());
+        assertEquals(first.shape(), second.shape());
+        assertEquals(plans, filterCompiler.cachedPlans());
+        assertEquals(1, treeWalker.getAllPersons(treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"gt": 4}}, {"name": {"in": ["Carol"]}}]}
+                """)).size());
+
+        treeWalker.compile(treeWalker.convertJSONToNode("""
+                {"AND": [{"score": {"eq": null}}, {"age": {"eq": 10}}]}
+                """));
+        JsonNode colliding = treeWalker.convertJSONToNode("""
+                {"AND": [{"score eq null,age": {"eq": 10}}]}
+                """);
+        assertThrows(FilterException.class, () -> treeWalker.compile(colliding));
+        assertThrows(FilterException.class, () -> treeWalker.getAllPersons(new ByteArrayInputStream("""
+                {"AND": [{"score eq null,age": {"eq": 10}}]}
+                """.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void test14() throws IOException {
+        JsonNode unknownField = treeWalker.convertJSONToNode("""
+                {"nickname": {"eq": "Bob"}}
+                """);
+        JsonNode rangeOnString = treeWalker.convertJSONToNode("""
+                {"name": {"gt": "Bob"}}
+                """);
+        JsonNode illegalValue = treeWalker.convertJSONToNode("""
+                {"age": {"eq": "ten"}}
+                """);
+
+        assertThrows(FilterException.class, () -> treeWalker.parseFilters(unknownField));
+        assertThrows(FilterException.class, () -> treeWalker.parseFilters(rangeOnString));
+        assertThrows(FilterException.class, () -> treeWalker.parseFilters(illegalValue));
+
+        String outOfRange = """
+                {"age": {"in": [10, 99999999999]}}
+                """;
+        assertThrows(FilterException.class, () -> treeWalker.compile(treeWalker.convertJSONToNode(outOfRange)));
+        assertThrows(FilterException.class, () -> treeWalker.compile(outOfRange.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void test15() throws IOException {
+        String json = """
+                {
+                    "AND": [
+                        {"age": {"eq": 10}},
+                        {"OR": [{"name": {"eq": "Alice"}}, {"name": {"eq": "Bob"}}, {"name": {"eq": "Oleg"}}]},
+                        {"date": {"in": ["2024-05-11T12:00:00", "2024-05-15T00:00:00"]}},
+                        {"score": {"!eq": null}}
+                    ]
+                }
+                """;
+        CompiledFilter streamed = treeWalker.compile(json.getBytes(StandardCharsets.UTF_8));
+        CompiledFilter tree = treeWalker.compile(treeWalker.convertJSONToNode(json));
+
+        assertEquals(tree, streamed);
+        List<Person> list = treeWalker.getAllPersons(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, list.size());
+        assertEquals("Alice", list.get(0).getName());
+    }
+
+    @Test
+    void test16() throws IOException {
+        assertEquals(Set.of("id", "name", "age", "score", "date", "enrolled"), fieldRegistry.descriptors(Person.class).keySet());
+        assertEquals(Integer.class, fieldRegistry.descriptor(Person.class, "age").javaType());
+        assertFalse(fieldRegistry.descriptor(Person.class, "enrolled").operators().contains(Operator.GT));
+
+        JsonNode rangeOnBoolean = treeWalker.convertJSONToNode("""
+                {"OR": [{"age": {"eq": 10}}, {"enrolled": {"ge": true}}]}
+                """);
+        assertThrows(FilterException.class, () -> treeWalker.compile(rangeOnBoolean));
+        assertThrows(FilterException.class, () -> treeWalker.compile("""
+                {"OR": [{"age": {"eq": 10}}, {"nickname": {"eq": "Bob"}}]}
+                """.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void test17() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"age": {"!eq": null}}
+                """);
+
+        assertEquals(List.of(8L, 1L, 6L, 3L, 4L, 5L, 7L, 2L),
+                pageIds(node, KeysetPageRequest.first("score", Sort.Direction.ASC, 3)));
+        assertEquals(List.of(2L, 7L, 5L, 4L, 3L, 6L, 1L, 8L),
+                pageIds(node, KeysetPageRequest.first("score", Sort.Direction.DESC, 3)));
+        assertEquals(List.of(8L, 4L, 2L, 1L, 6L, 5L, 7L, 3L),
+                pageIds(node, KeysetPageRequest.first("age", Sort.Direction.DESC, 2)));
+        assertEquals(List.of(2L, 5L, 1L),
+                treeWalker.getTopPersons(node, "date", Sort.Direction.DESC, 4).stream().skip(1).map(Person::getId).toList());
+    }
+
+    private List<Long> pageIds(JsonNode node, KeysetPageRequest request) {
+        List<Long> ids = new ArrayList<>();
+        KeysetPage<Person> page = treeWalker.getPersons(node, request);
+        ids.addAll(page.content().stream().map(Person::getId).toList());
+        while (page.hasNext()) {
+            assertEquals(request.size(), page.content().size());
+            page = treeWalker.getPersons(node, request.after(page.continuationToken()));
+            ids.addAll(page.content().stream().map(Person::getId).toList());
+        }
+        return ids;
+    }
+
+    @Test
+    void test18() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"name": {"in": ["Alice", "Bob"]}}
+                """);
+
+        List<Person> streamed = new ArrayList<>();
+        assertEquals(2, treeWalker.forEachPerson(node, streamed::add));
+        assertTrue(streamed.stream().noneMatch(entityManager::contains));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertEquals(2, treeWalker.exportPersons(node, ExportFormat.CSV, csv));
+        List<String> rows = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("id,name,age,score,date,enrolled", rows.get(0));
+        assertEquals(List.of("1,Alice,10,22.00,2024-05-11T12:00,true", "2,Bob,10,,2024-05-15T00:00,"),
+                rows.stream().skip(1).sorted().toList());
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        assertEquals(2, treeWalker.exportPersons(node, ExportFormat.NDJSON, ndjson));
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : ndjson.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(treeWalker.convertJSONToNode(line));
+        }
+        assertEquals(2, lines.size());
+        assertTrue(lines.stream().anyMatch(line -> line.get("score").isNull() && line.get("name").asText().equals("Bob")));
+    }
+
+    @Test
+    void test19() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"eq": 10}}, {"name": {"in": ["Alice", "Bob", "Carol"]}}]}
+                """);
+
+        List<Map<String, Object>> fields = treeWalker.getPersonFields(node, List.of("name", "score"));
+        assertEquals(2, fields.size());
+        assertEquals(List.of("name", "score"), List.copyOf(fields.get(0).keySet()));
+
+        List<NameAge> records = treeWalker.getPersons(node, NameAge.class);
+        assertEquals(List.of(new NameAge("Alice", 10), new NameAge("Bob", 10)),
+                records.stream().sorted((a, b) -> a.name().compareTo(b.name())).toList());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+
+        assertThrows(FilterException.class, () -> treeWalker.getPersonFields(node, List.of("nickname")));
+    }
+
+    @Test
+    void test20() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"OR": [{"age": {"gt": 10}}, {"score": {"eq": null}}]}
+                """);
+        JsonNode none = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"gt": 10}}, {"score": {"eq": null}}]}
+                """);
+
+        assertEquals(3, treeWalker.countPersons(node));
+        assertEquals(0, treeWalker.countPersons(none));
+        assertTrue(treeWalker.existsPersons(node));
+        assertFalse(treeWalker.existsPersons(none));
+    }
+
+    @Test
+    void test21() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"eq": 10}}, {"OR": [{"name": {"eq": "Alice"}}, {"AND": [{"age": {"eq": 11}}]}]}, {"age": {"eq": 11}}]}
+                """);
+
+        CompiledFilter compiled = treeWalker.compile(node);
+        assertTrue(compiled.matchesNothing());
+        assertEquals(0, treeWalker.getAllPersons(node).size());
+        assertEquals(0, treeWalker.countPersons(node));
+        assertFalse(treeWalker.existsPersons(node));
+        assertFalse(treeWalker.getPersons(node, KeysetPageRequest.first("id", Sort.Direction.ASC, 10)).hasNext());
+    }
+
+    @Test
+    void test22() throws IOException {
+        String ids = LongStream.rangeClosed(3, 50_000).mapToObj(Long::toString).collect(Collectors.joining(","));
+        String names = IntStream.range(0, 1_000).mapToObj(i -> "\"n" + i + "\"").collect(Collectors.joining(","));
+
+        assertEquals(6, treeWalker.getAllPersons(treeWalker.convertJSONToNode("""
+                {"id": {"in": [%s]}}
+                """.formatted(ids))).size());
+        assertEquals(2, treeWalker.getAllPersons(treeWalker.convertJSONToNode("""
+                {"id": {"!in": [%s]}}
+                """.formatted(ids))).size());
+        assertEquals(1, treeWalker.getAllPersons(treeWalker.convertJSONToNode("""
+                {"name": {"in": [%s, "Olga"]}}
+                """.formatted(names))).size());
+        assertEquals(2, treeWalker.getAllPersons(treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"in": [10, 11, 12]}}, {"score": {"!in": [%s]}}]}
+                """.formatted(IntStream.range(0, 300).mapToObj(Integer::toString).collect(Collectors.joining(","))))).size());
+    }
+
+    @Test
+    void test23() throws IOException {
+        properties.getCache().setEnabled(true);
+        try {
+            cachedResults();
+        } finally {
+            properties.getCache().setEnabled(false);
+        }
+    }
+
+    private void cachedResults() throws IOException {
+        resultCache.invalidateAll();
+        FilterCacheStats before = treeWalker.cacheStats();
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"eq": 10}}, {"name": {"in": ["Alice", "Bob"]}}]}
+                """);
+        JsonNode reordered = treeWalker.convertJSONToNode("""
+                { "AND" : [ { "name" : { "in" : [ "Bob", "Alice", "Bob" ] } }, { "age" : { "eq" : 10 } } ] }
+                """);
+
+        List<Person> persons = treeWalker.getAllPersons(node);
+        assertEquals(2, persons.size());
+        assertTrue(entityManager.contains(persons.get(0)));
+        List<Person> cached = treeWalker.getAllPersons(reordered);
+        assertNotSame(persons, cached);
+        assertEquals(persons.stream().map(Person::getId).toList(), cached.stream().map(Person::getId).toList());
+        assertFalse(entityManager.contains(cached.get(0)));
+        assertNotSame(persons.get(0), cached.get(0));
+        assertEquals(persons.get(0).getName(), cached.get(0).getName());
+        cached.get(0).setName("Changed");
+        cached.clear();
+        assertEquals(List.of("Alice", "Bob"), treeWalker.getAllPersons(node).stream().map(Person::getName).sorted().toList());
+        assertNotSame(persons, treeWalker.getAllPersons(node, CacheMode.BYPASS));
+
+        FilterCacheStats stats = treeWalker.cacheStats();
+        assertEquals(2, stats.hits() - before.hits());
+        assertEquals(1, stats.misses() - before.misses());
+        assertEquals(1, stats.entries());
+        assertEquals(3, stats.weight());
+
+        Person bob = personRepository.findById(2L).orElseThrow();
+        bob.setAge(30);
+        personRepository.saveAndFlush(bob);
+
+        FilterCacheStats invalidated = treeWalker.cacheStats();
+        assertEquals(0, invalidated.entries());
+        assertTrue(invalidated.invalidations() > stats.invalidations());
+        assertEquals(List.of(1L), treeWalker.getAllPersons(reordered).stream().map(Person::getId).toList());
+        assertEquals(List.of(1L), treeWalker.getAllPersons(reordered).stream().map(Person::getId).toList());
+        assertEquals(1, treeWalker.cacheStats().misses() - before.misses());
+        assertEquals(2, treeWalker.cacheStats().hits() - before.hits());
+        assertEquals(0, treeWalker.cacheStats().entries());
+    }
+
+    @Test
+    void test24() throws IOException {
+        List<JsonNode> filters = new ArrayList<>();
+        for (String json : List.of(
+                """
+                {"AND": [{"age": {"eq": 10}}, {"name": {"in": ["Alice", "Bob"]}}]}
+                """,
+                """
+                {"OR": [{"age": {"eq": 10}}, {"score": {"gt": 40}}]}
+                """,
+                """
+                {"score": {"!eq": 22}}
+                """,
+                """
+                {"AND": [{"age": {"eq": 10}}, {"age": {"eq": 11}}]}
+                """,
+                """
+                {"AND": [{"enrolled": {"eq": true}}, {"OR": [{"age": {"eq": 10}}, {"score": {"eq": null}}]}]}
+                """)) {
+            filters.add(treeWalker.convertJSONToNode(json));
+        }
+
+        List<List<Long>> batched = treeWalker.getPersonIds(filters);
+        List<List<Person>> rows = treeWalker.getAllPersons(filters);
+        assertEquals(filters.size(), batched.size());
+        for (int i = 0; i < filters.size(); i++) {
+            List<Long> expected = treeWalker.getAllPersons(filters.get(i), CacheMode.BYPASS).stream().map(Person::getId).sorted().toList();
+            assertEquals(expected, batched.get(i).stream().sorted().toList());
+            assertEquals(expected, rows.get(i).stream().map(Person::getId).sorted().toList());
+        }
+        assertEquals(List.of(), batched.get(3));
+
+        int maxConditions = properties.getBatchMaxConditions();
+        properties.setBatchMaxConditions(2);
+        try {
+            assertEquals(batched, treeWalker.getPersonIds(filters));
+        } finally {
+            properties.setBatchMaxConditions(maxConditions);
+        }
+    }
+
+    @Test
+    void test25() throws IOException {
+        Logger slowLog = (Logger) LoggerFactory.getLogger("spec.filter.slow");
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        slowLog.addAppender(appender);
+        Duration slowThreshold = properties.getSlowThreshold();
+        properties.setSlowThreshold(Duration.ZERO);
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"ge": 10}}, {"name": {"!eq": "Secret"}}]}
+                """);
+        try {
+            assertEquals(4, treeWalker.getAllPersons(node, CacheMode.BYPASS).size());
+            assertEquals(4, treeWalker.countPersons(node));
+        } finally {
+            properties.setSlowThreshold(slowThreshold);
+            slowLog.detachAppender(appender);
+        }
+
+        for (String phase : List.of("parse", "compile", "criteria", "sql", "hydration")) {
+            assertTrue(meterRegistry.get("spec.filter.phase").tag("phase", phase).timer().count() > 0, phase);
+        }
+        assertTrue(meterRegistry.get("spec.filter.query").tag("operation", "count").timer().count() > 0);
+        assertTrue(meterRegistry.get("spec.filter.rows").tag("operation", "list").summary().max() >= 4);
+        assertTrue(meterRegistry.get("spec.filter.conditions").tags("field", "name", "operator", "!eq").counter().count() > 0);
+        double executed = meterRegistry.get("spec.filter.conditions").tags("field", "age", "operator", "ge").counter().count();
+        treeWalker.estimateCost(node);
+        assertEquals(executed, meterRegistry.get("spec.filter.conditions").tags("field", "age", "operator", "ge").counter().count());
+
+        assertEquals(2, appender.list.size());
+        String message = appender.list.get(0).getFormattedMessage();
+        assertTrue(message.contains("shape=AND(age ge ?,name !eq ?)"), message);
+        assertTrue(message.toLowerCase().contains("from t1"), message);
+        assertFalse(message.contains("Secret"), message);
+    }
+
+    @Test
+    void test26() throws IOException {
+        FilterCost byId = treeWalker.estimateCost(treeWalker.convertJSONToNode("""
+                {"id": {"eq": 1}}
+                """));
+        assertEquals(new FilterCost(0, 1, 0, 0, 0, 1.01), byId);
+        FilterCost scan = treeWalker.estimateCost(treeWalker.convertJSONToNode("""
+                {"AND": [{"id": {"!in": [1, 2, 3]}}, {"OR": [{"age": {"eq": 10}}, {"name": {"in": ["Alice", "Bob"]}}]}]}
+                """));
+        assertEquals(2, scan.depth());
+        assertEquals(3, scan.predicates());
+        assertEquals(3, scan.largestInList());
+        assertEquals(1, scan.negations());
+        assertEquals(3, scan.unindexedPredicates());
+        assertTrue(scan.score() > 30 * byId.score());
+
+        String nested = "{\"age\": {\"eq\": 10}}";
+        for (int i = 0; i < 40; i++) {
+            nested = "{\"%s\": [%s, {\"id\": {\"eq\": %d}}]}".formatted(i % 2 == 0 ? "AND" : "OR", nested, i);
+        }
+        JsonNode deep = treeWalker.convertJSONToNode(nested);
+        FilterRejectedException depth = assertThrows(FilterRejectedException.class, () -> treeWalker.getAllPersons(deep));
+        assertEquals(FilterRejectedException.Limit.DEPTH, depth.getLimit());
+        assertEquals(33, depth.getActual());
+        assertEquals(32, depth.getAllowed());
+        byte[] deepBytes = nested.getBytes(StandardCharsets.UTF_8);
+        assertEquals(FilterRejectedException.Limit.DEPTH, assertThrows(FilterRejectedException.class,
+                () -> treeWalker.getAllPersons(new ByteArrayInputStream(deepBytes))).getLimit());
+
+        JsonNode hugeIn = treeWalker.convertJSONToNode("""
+                {"score": {"!in": [%s]}}
+                """.formatted(IntStream.rangeClosed(0, 100_000).mapToObj(Integer::toString).collect(Collectors.joining(","))));
+        FilterRejectedException inValues = assertThrows(FilterRejectedException.class, () -> treeWalker.countPersons(hugeIn));
+        assertEquals(FilterRejectedException.Limit.IN_VALUES, inValues.getLimit());
+        assertTrue(inValues.getMessage().contains("spec.filter.admission.max-in-values"), inValues.getMessage());
+
+        FilterProperties.Admission admissionProperties = properties.getAdmission();
+        double maxScore = admissionProperties.getMaxScore();
+        admissionProperties.setMaxScore(10);
+        try {
+            assertEquals(1, treeWalker.countPersons(treeWalker.convertJSONToNode("""
+                    {"id": {"eq": 1}}
+                    """)));
+            FilterRejectedException score = assertThrows(FilterRejectedException.class,
+                    () -> treeWalker.getAllPersons(treeWalker.convertJSONToNode("""
+                            {"age": {"ge": 10}}
+                            """)));
+            assertEquals(FilterRejectedException.Limit.SCORE, score.getLimit());
+        } finally {
+            admissionProperties.setMaxScore(maxScore);
+        }
+
+        double queueScore = admissionProperties.getQueueScore();
+        Duration queueTimeout = admissionProperties.getQueueTimeout();
+        admissionProperties.setQueueScore(0);
+        admissionProperties.setQueueTimeout(Duration.ZERO);
+        try {
+            JsonNode node = treeWalker.convertJSONToNode("""
+                    {"age": {"ge": 10}}
+                    """);
+            CompiledFilter filter = treeWalker.compile(node);
+            FilterRejectedException queued = assertThrows(FilterRejectedException.class,
+                    () -> admission.execute(Person.class, filter,
+                            () -> admission.execute(Person.class, filter,
+                                    () -> treeWalker.getAllPersons(node, CacheMode.BYPASS))));
+            assertEquals(FilterRejectedException.Limit.QUEUE, queued.getLimit());
+            assertEquals(0, admission.runningExpensive());
+            assertEquals(4, treeWalker.getAllPersons(node, CacheMode.BYPASS).size());
+        } finally {
+            admissionProperties.setQueueScore(queueScore);
+            admissionProperties.setQueueTimeout(queueTimeout);
+        }
+    }
+
+    @Test
+    void test27() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"id": {"eq": 4}}
+                """);
+        FilterException disabled = assertThrows(FilterException.class, () -> treeWalker.explain(node));
+        assertTrue(disabled.getMessage().contains("spec.filter.explain.enabled"), disabled.getMessage());
+    }
+
+    @Test
+    void test28() throws IOException {
+        JsonNode adults = treeWalker.convertJSONToNode("""
+                {"age": {"ge": 10}}
+                """);
+        assertEquals(4, treeWalker.getAllPersons(adults).size());
+        Person alice = personRepository.findById(1L).orElseThrow();
+        Person olga = personRepository.findById(3L).orElseThrow();
+
+        assertEquals(4, treeWalker.updatePersons(adults, Map.of("score", "99.5", "enrolled", false)));
+        assertEquals(0, new BigDecimal("99.5").compareTo(alice.getScore()));
+        assertEquals(Boolean.FALSE, alice.getEnrolled());
+        assertNotEquals(0, new BigDecimal("99.5").compareTo(olga.getScore()));
+        List<Person> rescored = treeWalker.getAllPersons(treeWalker.convertJSONToNode("""
+                {"score": {"eq": 99.5}}
+                """));
+        assertEquals(List.of(1L, 2L, 4L, 8L), rescored.stream().map(Person::getId).sorted().toList());
+
+        JsonNode nothing = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"eq": 10}}, {"age": {"eq": 11}}]}
+                """);
+        assertEquals(0, treeWalker.updatePersons(nothing, Map.of("age", 1)));
+        assertEquals(0, treeWalker.deletePersons(nothing));
+
+        assertEquals("Identifier 'id' cannot be updated",
+                assertThrows(FilterException.class, () -> treeWalker.updatePersons(adults, Map.of("id", 5))).getMessage());
+        Map<String, Object> nullAge = new HashMap<>();
+        nullAge.put("age", null);
+        assertEquals("Field 'age' cannot be set to null",
+                assertThrows(FilterException.class, () -> treeWalker.updatePersons(adults, nullAge)).getMessage());
+        assertThrows(FilterException.class, () -> treeWalker.updatePersons(adults, Map.of("unknown", 1)));
+        assertThrows(FilterException.class, () -> treeWalker.updatePersons(adults, Map.of("age", "old")));
+        assertThrows(FilterException.class, () -> treeWalker.updatePersons(adults, Map.of()));
+
+        Person fourth = personRepository.findById(4L).orElseThrow();
+        assertEquals(2, treeWalker.deletePersons(treeWalker.convertJSONToNode("""
+                {"AND": [{"score": {"eq": 99.5}}, {"id": {"!in": [1, 2]}}]}
+                """)));
+        assertFalse(entityManager.contains(fourth));
+        assertTrue(entityManager.contains(alice));
+        assertEquals(List.of(1L, 2L), treeWalker.getAllPersons(adults).stream().map(Person::getId).sorted().toList());
+        assertEquals(6, personRepository.count());
+    }
+
+    @Test
+    void test29() throws IOException {
+        JsonNode adults = treeWalker.convertJSONToNode("""
+                {"age": {"ge": 10}}
+                """);
+
+        List<Map<String, Object>> byAge = treeWalker.aggregatePersons(adults,
+                AggregationRequest.of(List.of("age"), Aggregate.count(), Aggregate.count("score"), Aggregate.avg("score").as("average")));
+        assertEquals(List.of(10, 11, 12), byAge.stream().map(group -> group.get("age")).toList());
+        assertEquals(List.of("age", "count", "count_score", "average"), List.copyOf(byAge.get(0).keySet()));
+        assertEquals(List.of(2L, 1L, 1L), byAge.stream().map(group -> group.get("count")).toList());
+        assertEquals(1L, byAge.get(0).get("count_score"));
+        assertEquals(22.0, ((Number) byAge.get(0).get("average")).doubleValue(), 1e-9);
+
+        JsonNode everyone = treeWalker.convertJSONToNode("""
+                {"id": {"!eq": 0}}
+                """);
+        Map<String, Object> totals = treeWalker.aggregatePersons(everyone, AggregationRequest.of(List.of(),
+                Aggregate.count(), Aggregate.sum("age"), Aggregate.avg("score"), Aggregate.min("date"), Aggregate.max("date"))).get(0);
+        assertEquals(8L, totals.get("count"));
+        assertEquals(72L, ((Number) totals.get("sum_age")).longValue());
+        assertEquals(30.4, ((Number) totals.get("avg_score")).doubleValue(), 1e-9);
+        assertEquals(LocalDateTime.of(2024, 4, 23, 0, 0), totals.get("min_date"));
+        assertEquals(LocalDateTime.of(2024, 5, 17, 0, 0), totals.get("max_date"));
+
+        List<Map<String, Object>> byEnrollment = treeWalker.aggregatePersons(adults, treeWalker.convertJSONToNode("""
+                {"groupBy": ["enrolled"], "aggregates": [{"count": "*", "as": "n"}, {"max": "name"}]}
+                """));
+        Map<Object, Object> counts = new HashMap<>();
+        byEnrollment.forEach(group -> counts.put(group.get("enrolled"), group.get("n")));
+        assertEquals(2L, counts.get(true));
+        assertEquals(2L, counts.get(null));
+
+        JsonNode nothing = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"eq": 10}}, {"age": {"eq": 11}}]}
+                """);
+        assertEquals(0L, treeWalker.aggregatePersons(nothing, AggregationRequest.of(List.of(), Aggregate.count())).get(0).get("count"));
+
+        assertEquals("'avg' aggregate is not supported for field 'name' of type String",
+                assertThrows(FilterException.class, () -> treeWalker.aggregatePersons(adults,
+                        AggregationRequest.of(List.of(), Aggregate.avg("name")))).getMessage());
+        assertEquals("Aggregation selects 'age' twice",
+                assertThrows(FilterException.class, () -> treeWalker.aggregatePersons(adults,
+                        AggregationRequest.of(List.of("age"), Aggregate.max("score").as("age")))).getMessage());
+        JsonNode median = treeWalker.convertJSONToNode("""
+                {"aggregates": [{"median": "score"}]}
+                """);
+        assertThrows(FilterException.class, () -> treeWalker.aggregatePersons(adults, median));
+    }
+
+    @Test
+    void test30() throws IOException {
+        properties.getCache().setEnabled(true);
+        try {
+            JsonNode tenYearOlds = treeWalker.convertJSONToNode("""
+                    {"age": {"eq": 10}}
+                    """);
+            resultCache.invalidateAll();
+            assertEquals(List.of(1L, 2L), treeWalker.getAllPersons(tenYearOlds).stream().map(Person::getId).sorted().toList());
+
+            Person ivan = new Person();
+            ivan.setId(9L);
+            ivan.setName("Ivan");
+            ivan.setAge(10);
+            personRepository.save(ivan);
+            personRepository.findById(2L).orElseThrow().setAge(30);
+
+            assertEquals(List.of(1L, 9L), treeWalker.getAllPersons(tenYearOlds).stream().map(Person::getId).sorted().toList());
+            assertEquals(List.of(1L, 9L), treeWalker.getAllPersons(tenYearOlds).stream().map(Person::getId).sorted().toList());
+            assertEquals(0, treeWalker.cacheStats().entries());
+        } finally {
+            properties.getCache().setEnabled(false);
+        }
+    }
+
+    @Test
+    void test31() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"age": {"ge": 10}}
+                """);
+        CompiledFilter filter = treeWalker.compile(node);
+        FilterProperties.Admission admissionProperties = properties.getAdmission();
+        double queueScore = admissionProperties.getQueueScore();
+        Duration queueTimeout = admissionProperties.getQueueTimeout();
+        admissionProperties.setQueueScore(0);
+        admissionProperties.setQueueTimeout(Duration.ZERO);
+        try {
+            admission.execute(Person.class, filter, () -> admission.execute(Person.class, filter, () -> {
+                List<Executable> queries = List.of(
+                        () -> treeWalker.getPersons(node, KeysetPageRequest.first("id", Sort.Direction.ASC, 2)),
+                        () -> treeWalker.getTopPersons(node, "age", Sort.Direction.DESC, 2),
+                        () -> treeWalker.getPersons(node, NameAge.class),
+                        () -> treeWalker.getPersonFields(node, List.of("name")),
+                        () -> treeWalker.forEachPerson(node, person -> {
+                        }),
+                        () -> treeWalker.exportPersons(node, ExportFormat.CSV, new ByteArrayOutputStream()),
+                        () -> treeWalker.getAllPersons(List.of(node, node)),
+                        () -> treeWalker.getPersonIds(List.of(node)),
+                        () -> {
+                            try {
+                                treeWalker.getAllPersonsAsync(node).get();
+                            } catch (ExecutionException e) {
+                                throw e.getCause();
+                            }
+                        });
+                for (Executable query : queries) {
+                    assertEquals(FilterRejectedException.Limit.QUEUE,
+                            assertThrows(FilterRejectedException.class, query).getLimit());
+                }
+                try (Stream<Person> persons = treeWalker.streamPersons(node)) {
+                    assertEquals(4, persons.count());
+                }
+                return null;
+            }));
+        } finally {
+            admissionProperties.setQueueScore(queueScore);
+            admissionProperties.setQueueTimeout(queueTimeout);
+        }
+
+        assertEquals(List.of(1L, 2L), treeWalker.getPersons(node, KeysetPageRequest.first("id", Sort.Direction.ASC, 2))
+                .content().stream().map(Person::getId).toList());
+        assertEquals(4, treeWalker.forEachPerson(node, person -> {
+        }));
+        assertEquals(List.of(List.of(1L, 4L), List.of(4L, 8L)), treeWalker.getPersonIds(List.of(
+                treeWalker.convertJSONToNode("""
+                        {"enrolled": {"eq": true}}
+                        """), treeWalker.convertJSONToNode("""
+                        {"age": {"gt": 10}}
+                        """))));
+        for (String operation : List.of("keyset-page", "for-each", "batch-ids")) {
+            assertTrue(meterRegistry.get("spec.filter.query").tag("operation", operation).timer().count() > 0, operation);
+        }
+    }
+
+    record NameAge(String name, Integer age) {
+    }
+}
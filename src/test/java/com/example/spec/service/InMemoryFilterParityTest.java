@@ -0,0 +1,100 @@
+package com.example.spec.service;
+
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.repository.PersonRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the in-memory backend matches exactly the rows returned by the database.
+ */
+@SpringBootTest
+@Sql("/data.sql")
+@Transactional
+class InMemoryFilterParityTest {
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            """
+            {"AND": [{"age": {"eq": 10}}, {"OR": [{"name": {"eq": "Alice"}}, {"name": {"eq": "Bob"}},
+                     {"name": {"eq": "Oleg"}}, {"name": {"eq": "Olga"}}]}]}
+            """,
+            """
+            {"AND": [{"age": {"gt": 10}}]}
+            """,
+            """
+            {"AND": [{"score": {"ge": 33.2}}]}
+            """,
+            """
+            {"AND": [{"date": {"ge": "2024-05-01T00:00:00"}}]}
+            """,
+            """
+            {"AND": [{"date": {"lt": "2024-05-11T00:00:00"}}]}
+            """,
+            """
+            {"AND": [{"date": {"le": "2024-05-11T12:00:00"}}]}
+            """,
+            """
+            {"AND": [{"score": {"eq": null}}]}
+            """,
+            """
+            {"AND": [{"score": {"!eq": null}}]}
+            """,
+            """
+            {"AND": [{"age": {"in": [10, 11, 12]}}]}
+            """,
+            """
+            {"AND": [{"date": {"in": ["2024-05-01T00:00:00", "2024-04-25T00:00:00"]}}]}
+            """,
+            """
+            {"AND": [{"age": {"!in": [10, 11, 12]}}]}
+            """,
+            """
+            {"AND": [{"enrolled": {"eq": true}}]}
+            """,
+            """
+            {"enrolled": {"!eq": true}}
+            """,
+            """
+            {"score": {"eq": 22}}
+            """,
+            """
+            {"score": {"!in": [22, 30.00, 44.3]}}
+            """,
+            """
+            {"OR": [{"score": {"lt": 20}}, {"AND": [{"age": {"le": 9}}, {"name": {"!eq": "Olga"}}]}]}
+            """,
+            """
+            {"AND": [{"id": {"ge": 2}}, {"id": {"lt": 7}}, {"score": {"!eq": 33.2}}]}
+            """,
+            """
+            {"AND": [{"age": {"eq": 10}}, {"age": {"eq": 11}}]}
+            """
+    })
+    void inMemoryMatchesDatabase(String json) throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode(json);
+        List<Person> all = personRepository.findAll();
+
+        assertEquals(ids(treeWalker.getAllPersons(node)), ids(treeWalker.filterPersons(node, all)));
+    }
+
+    private static List<Long> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.spec.service.async;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.entity.Person;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs without a test transaction: asynchronous queries use their own transactions and only see
+ * committed rows, so the data lives in a database of its own.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:async;DB_CLOSE_DELAY=-1",
+        "spec.filter.async.max-concurrency=2",
+        "spec.filter.async.queue-capacity=2"})
+@Sql(scripts = {"/data.sql", "/large-data.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class AsyncFilterExecutorTest {
+
+    private static final String ALL = """
+            {"id": {"!eq": 0}}
+            """;
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Autowired
+    private AsyncFilterExecutor asyncExecutor;
+
+    @Test
+    void returnsTheRowsOfTheBlockingQuery() throws Exception {
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"eq": 10}}, {"id": {"lt": 100}}]}
+                """);
+
+        List<Person> persons = treeWalker.getAllPersonsAsync(node, Duration.ofSeconds(10)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1L, 2L), persons.stream().map(Person::getId).sorted().toList());
+    }
+
+    @Test
+    void timesOutAtTheDeadline() throws IOException {
+        CompletableFuture<List<Person>> future = treeWalker.getAllPersonsAsync(treeWalker.convertJSONToNode(ALL), Duration.ofMillis(20));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        awaitIdle();
+    }
+
+    @Test
+    void cancellationReleasesTheConnection() throws Exception {
+        CompletableFuture<List<Person>> future = treeWalker.getAllPersonsAsync(treeWalker.convertJSONToNode(ALL), Duration.ofSeconds(30));
+        Thread.sleep(50);
+
+        assertTrue(future.cancel(true));
+        assertThrows(CancellationException.class, future::join);
+        awaitIdle();
+    }
+
+    @Test
+    void rejectsQueriesBeyondTheQueueOnPlatformThreads() throws IOException {
+        Assumptions.assumeTrue(Runtime.version().feature() < 21, "virtual threads do not queue");
+        JsonNode node = treeWalker.convertJSONToNode(ALL);
+        List<CompletableFuture<List<Person>>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(treeWalker.getAllPersonsAsync(node, Duration.ofSeconds(30)));
+            if (i == 1) {
+                awaitInFlight(2);
+            }
+        }
+
+        CompletionException rejected = assertThrows(CompletionException.class, () -> futures.get(4).join());
+        assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+        futures.forEach(future -> future.cancel(true));
+        awaitIdle();
+    }
+
+    private void awaitIdle() {
+        awaitInFlight(0);
+    }
+
+    private void awaitInFlight(int queries) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (asyncExecutor.inFlight() != queries && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(queries, asyncExecutor.inFlight());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.spec.service.cache;
+
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.filter.CompiledFilter;
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.filter.Operator;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class FilterResultCacheTest {
+
+    private final FilterProperties properties = new FilterProperties();
+
+    private final FilterResultCache cache = new FilterResultCache(properties,
+            row -> row instanceof StringBuilder text ? new StringBuilder(text) : row,
+            new StaticListableBeanFactory().getBeanProvider(EntityManager.class));
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void enable() {
+        properties.getCache().setEnabled(true);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByWeight() {
+        properties.getCache().setMaxWeight(8);
+
+        load(1, 3);
+        load(2, 3);
+        load(1, 3);
+        load(3, 3);
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.stats().evictions());
+        load(1, 3);
+        load(2, 3);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void expiresAfterTtl() throws InterruptedException {
+        properties.getCache().setTtl(Duration.ofMillis(20));
+
+        load(1, 1);
+        load(1, 1);
+        Thread.sleep(40);
+        load(1, 1);
+
+        assertEquals(2, loads.get());
+        assertEquals(new FilterCacheStats(1, 2, 1, 0, 1, 2), cache.stats());
+    }
+
+    @Test
+    void resultsLoadedDuringInvalidationAreNotCached() {
+        CompiledFilter filter = filter(1);
+        cache.get(Long.class, filter, CacheMode.USE, () -> {
+            cache.invalidateAll();
+            return List.of(1L);
+        });
+
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void hitsReturnNewListsOfCopies() {
+        CompiledFilter filter = filter(1);
+        StringBuilder loaded = new StringBuilder("Alice");
+        List<StringBuilder> first = cache.get(StringBuilder.class, filter, CacheMode.USE, () -> new ArrayList<>(List.of(loaded)));
+        loaded.append(" changed");
+
+        List<StringBuilder> second = cache.get(StringBuilder.class, filter, CacheMode.USE, List::of);
+        second.get(0).append(" again");
+        second.clear();
+
+        List<StringBuilder> third = cache.get(StringBuilder.class, filter, CacheMode.USE, List::of);
+        assertNotSame(first, third);
+        assertEquals("Alice", third.get(0).toString());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(2, cache.stats().hits());
+    }
+
+    @Test
+    void transactionsThatWroteDoNotCache() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate();
+            load(1, 1);
+            load(1, 1);
+            assertEquals(0, cache.stats().entries());
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(0));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        load(1, 1);
+        load(1, 1);
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.stats().entries());
+    }
+
+    private void load(int age, int rows) {
+        cache.get(Long.class, filter(age), CacheMode.USE, () -> {
+            loads.incrementAndGet();
+            return Collections.nCopies(rows, (long) age);
+        });
+    }
+
+    private static CompiledFilter filter(int age) {
+        return new CompiledFilter("age eq ?", new FilterNode.Condition("age", Operator.EQ, age));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.filter.FilterNode;
+import com.example.spec.service.filter.Operator;
+import com.example.spec.service.repository.PersonRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes are applied to the store when they commit, so the test runs without a test transaction
+ * on a database of its own.
+ */
+@SpringBootTest(properties = {"spec.filter.columnar.enabled=true", "spring.datasource.url=jdbc:h2:mem:columnar-listener;DB_CLOSE_DELAY=-1"})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class PersonColumnStoreListenerTest {
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Autowired
+    private PersonColumnStore columnStore;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void appliesCommittedWritesAndReloadsAfterBulkStatements() throws IOException {
+        columnStore.refresh();
+        JsonNode adults = treeWalker.convertJSONToNode("""
+                {"age": {"ge": 10}}
+                """);
+        assertEquals(List.of(1L, 2L, 4L, 8L), ids(treeWalker.getAllPersonsFromColumnStore(adults)));
+
+        Person carol = personRepository.findById(3L).orElseThrow();
+        carol.setAge(40);
+        personRepository.save(carol);
+        personRepository.deleteById(2L);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Person olga = personRepository.findById(7L).orElseThrow();
+            olga.setAge(70);
+            personRepository.saveAndFlush(olga);
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(1L, 3L, 4L, 8L), ids(treeWalker.getAllPersonsFromColumnStore(adults)));
+
+        assertEquals(4, treeWalker.updatePersons(adults, Map.of("age", 5)));
+        assertEquals(List.of(), ids(treeWalker.getAllPersonsFromColumnStore(adults)));
+        assertEquals(7, columnStore.size());
+    }
+
+    @Test
+    void keepsValuesWithoutLongEncoding() {
+        Person precise = new Person();
+        precise.setId(1L);
+        precise.setScore(new BigDecimal("12345678901234567890.123456789"));
+        precise.setDate(LocalDateTime.of(9999, 12, 31, 23, 59));
+        Person coarse = new Person();
+        coarse.setId(2L);
+        coarse.setScore(new BigDecimal("0.5"));
+        coarse.setDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+        ColumnarSnapshot snapshot = ColumnarSnapshot.of(List.of(precise, coarse));
+
+        assertEquals(0, new BigDecimal("12345678901234567890.123456789").compareTo((BigDecimal) snapshot.materialize(0).getScore()));
+        assertEquals(LocalDateTime.of(9999, 12, 31, 23, 59), snapshot.materialize(0).getDate());
+        assertEquals(BitSet.valueOf(new long[]{0b10}), snapshot.evaluate(new FilterNode.Condition("score", Operator.EQ, new BigDecimal("0.50"))));
+        assertEquals(BitSet.valueOf(new long[]{0b01}), snapshot.evaluate(new FilterNode.Condition("date", Operator.GT, LocalDateTime.of(2025, 1, 1, 0, 0))));
+    }
+
+    private static List<Long> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.spec.service.columnar;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.filter.CompiledFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the column store returns exactly the rows of the database query.
+ */
+@Slf4j
+@SpringBootTest(properties = {"spec.filter.columnar.enabled=true", "spring.datasource.url=jdbc:h2:mem:columnar;DB_CLOSE_DELAY=-1"})
+@Sql("/data.sql")
+@Transactional
+class PersonColumnStoreTest {
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Autowired
+    private PersonColumnStore columnStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            """
+            {"AND": [{"age": {"eq": 10}}, {"OR": [{"name": {"eq": "Alice"}}, {"name": {"eq": "Oleg"}}]}]}
+            """,
+            """
+            {"AND": [{"age": {"gt": 10}}]}
+            """,
+            """
+            {"AND": [{"score": {"ge": 33.2}}]}
+            """,
+            """
+            {"AND": [{"score": {"gt": 33.25}}, {"score": {"le": 36.95}}]}
+            """,
+            """
+            {"AND": [{"date": {"lt": "2024-05-11T00:00:00"}}]}
+            """,
+            """
+            {"AND": [{"date": {"le": "2024-05-11T12:00:00"}}]}
+            """,
+            """
+            {"AND": [{"score": {"eq": null}}]}
+            """,
+            """
+            {"AND": [{"score": {"!eq": null}}]}
+            """,
+            """
+            {"AND": [{"name": {"!in": ["Alice", "Zed"]}}, {"name": {"!eq": "Aaron"}}]}
+            """,
+            """
+            {"AND": [{"name": {"in": ["Olga", "Nobody", "Bob"]}}]}
+            """,
+            """
+            {"AND": [{"age": {"!in": [10, 11, 12]}}]}
+            """,
+            """
+            {"enrolled": {"!eq": true}}
+            """,
+            """
+            {"score": {"!in": [22, 30.00, 44.3]}}
+            """,
+            """
+            {"OR": [{"score": {"lt": 20}}, {"AND": [{"age": {"le": 9}}, {"name": {"!eq": "Olga"}}]}]}
+            """,
+            """
+            {"AND": [{"id": {"ge": 2}}, {"id": {"lt": 7}}, {"score": {"!eq": 33.2}}]}
+            """
+    })
+    void columnStoreMatchesDatabase(String json) throws IOException {
+        columnStore.refresh();
+        JsonNode node = treeWalker.convertJSONToNode(json);
+
+        assertEquals(ids(treeWalker.getAllPersons(node)), ids(treeWalker.getAllPersonsFromColumnStore(node)));
+    }
+
+    @Test
+    void incrementalUpdatesAreVisible() throws IOException {
+        columnStore.refresh();
+        JsonNode node = treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"ge": 10}}]}
+                """);
+        assertEquals(List.of(1L, 2L, 4L, 8L), ids(treeWalker.getAllPersonsFromColumnStore(node)));
+
+        Person carol = treeWalker.getAllPersons(treeWalker.convertJSONToNode("""
+                {"name": {"eq": "Carol"}}
+                """)).get(0);
+        carol.setAge(40);
+        columnStore.upsert(carol);
+        columnStore.remove(2L);
+        Person newcomer = person(9L, "Nina", 15);
+        columnStore.upsert(newcomer);
+        newcomer.setAge(1);
+
+        assertEquals(List.of(1L, 3L, 4L, 8L, 9L), ids(treeWalker.getAllPersonsFromColumnStore(node)));
+        assertEquals(8, columnStore.size());
+    }
+
+    /**
+     * Seeds {@code benchmark.rows} persons (1M by default) and compares the column store with the
+     * JPA path. Run with {@code -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws IOException {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        seed(rows);
+        long start = System.nanoTime();
+        columnStore.refresh();
+        log.info("Loaded {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+
+        for (String json : List.of(
+                """
+                {"AND": [{"age": {"eq": 42}}, {"score": {"gt": 90.5}}]}
+                """,
+                """
+                {"AND": [{"name": {"in": ["name-17", "name-4242"]}}, {"enrolled": {"eq": true}}]}
+                """,
+                """
+                {"OR": [{"id": {"lt": 1000}}, {"date": {"ge": "2024-12-31T00:00:00"}}]}
+                """)) {
+            JsonNode node = treeWalker.convertJSONToNode(json);
+            int expected = treeWalker.getAllPersons(node).size();
+            assertEquals(expected, treeWalker.getAllPersonsFromColumnStore(node).size());
+            CompiledFilter filter = treeWalker.compile(node);
+            log.info("{} rows, {} matches, {}: jpa {} us, column store {} us (bitmaps {} us)", rows, expected, json.strip(),
+                    measure(() -> treeWalker.getAllPersons(node)), measure(() -> treeWalker.getAllPersonsFromColumnStore(node)),
+                    measure(() -> columnStore.query(filter)));
+        }
+    }
+
+    private long measure(Runnable query) {
+        int rounds = 10;
+        for (int i = 0; i < rounds; i++) {
+            query.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / rounds / 1000;
+    }
+
+    private void seed(int rows) {
+        LocalDateTime epoch = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int id = 100; id < rows + 100; id++) {
+            batch.add(new Object[]{id, "name-" + id % 10_000, id % 100, BigDecimal.valueOf(id % 10_000, 2),
+                    Timestamp.valueOf(epoch.plusMinutes(id % 525_600)), id % 3 == 0});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO t1 (id, name, age, score, date, enrolled) VALUES (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO t1 (id, name, age, score, date, enrolled) VALUES (?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    private static Person person(Long id, String name, int age) {
+        Person person = new Person();
+        person.setId(id);
+        person.setName(name);
+        person.setAge(age);
+        return person;
+    }
+
+    private static List<Long> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.spec.service.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilterOptimizerTest {
+
+    @Test
+    void mergesOredEqualsIntoIn() {
+        FilterNode node = and(eq("age", 10), or(eq("name", "Alice"), eq("name", "Bob"), or(eq("name", "Oleg")), eq("name", "Bob")));
+
+        assertEquals(and(eq("age", 10), cond("name", Operator.IN, List.of("Alice", "Bob", "Oleg"))), FilterOptimizer.optimize(node));
+    }
+
+    @Test
+    void flattensAndUnwrapsJunctions() {
+        FilterNode node = and(and(eq("age", 10)), and(or(eq("name", "Alice"), cond("score", Operator.GT, 1))));
+
+        assertEquals(and(eq("age", 10), or(eq("name", "Alice"), cond("score", Operator.GT, 1))), FilterOptimizer.optimize(node));
+        assertEquals(eq("age", 10), FilterOptimizer.optimize(or(and(eq("age", 10)), eq("age", 10))));
+    }
+
+    @Test
+    void intersectsRanges() {
+        FilterNode node = and(cond("age", Operator.GT, 5), cond("age", Operator.GE, 7), cond("age", Operator.LT, 12),
+                cond("age", Operator.LE, 12), eq("name", "Bob"));
+
+        assertEquals(and(cond("age", Operator.GE, 7), cond("age", Operator.LT, 12), eq("name", "Bob")), FilterOptimizer.optimize(node));
+        assertEquals(eq("age", 7), FilterOptimizer.optimize(and(cond("age", Operator.GE, 7), cond("age", Operator.LE, 7))));
+        assertEquals(cond("score", Operator.GT, new BigDecimal("2.0")),
+                FilterOptimizer.optimize(and(cond("score", Operator.GT, new BigDecimal("1.5")), cond("score", Operator.GT, new BigDecimal("2.0")),
+                        cond("score", Operator.NOT_EQ, null))));
+    }
+
+    @Test
+    void filtersCandidatesByOtherPredicates() {
+        FilterNode node = and(cond("age", Operator.IN, List.of(5, 10, 11, 12)), cond("age", Operator.GE, 10),
+                cond("age", Operator.NOT_IN, List.of(11)));
+
+        assertEquals(cond("age", Operator.IN, List.of(10, 12)), FilterOptimizer.optimize(node));
+        assertEquals(eq("age", 12), FilterOptimizer.optimize(and(node, cond("age", Operator.NOT_EQ, 10))));
+    }
+
+    @Test
+    void detectsContradictions() {
+        assertEquals(FilterNode.Constant.FALSE, FilterOptimizer.optimize(and(eq("age", 10), eq("age", 11))));
+        assertEquals(FilterNode.Constant.FALSE, FilterOptimizer.optimize(and(cond("age", Operator.GT, 10), cond("age", Operator.LE, 10))));
+        assertEquals(FilterNode.Constant.FALSE, FilterOptimizer.optimize(and(eq("score", null), cond("score", Operator.NOT_EQ, new BigDecimal(1)))));
+        assertEquals(FilterNode.Constant.FALSE, FilterOptimizer.optimize(and(eq("age", 10), cond("age", Operator.NOT_IN, List.of(9, 10)))));
+        assertEquals(FilterNode.Constant.FALSE, FilterOptimizer.optimize(or(cond("age", Operator.IN, List.of()), and(eq("age", 1), eq("age", 2)))));
+        assertEquals(eq("name", "Bob"), FilterOptimizer.optimize(or(and(eq("age", 1), eq("age", 2)), eq("name", "Bob"))));
+    }
+
+    @Test
+    void keepsNullAwarePredicates() {
+        FilterNode node = and(cond("score", Operator.NOT_EQ, null), cond("score", Operator.NOT_EQ, new BigDecimal(1)));
+
+        assertEquals(cond("score", Operator.NOT_EQ, new BigDecimal(1)), FilterOptimizer.optimize(node));
+        assertEquals(eq("score", null), FilterOptimizer.optimize(and(eq("score", null), eq("score", null))));
+    }
+
+    private static FilterNode and(FilterNode... children) {
+        return new FilterNode.Junction(Logic.AND, List.of(children));
+    }
+
+    private static FilterNode or(FilterNode... children) {
+        return new FilterNode.Junction(Logic.OR, List.of(children));
+    }
+
+    private static FilterNode eq(String field, Object value) {
+        return cond(field, Operator.EQ, value);
+    }
+
+    private static FilterNode cond(String field, Operator operator, Object value) {
+        return new FilterNode.Condition(field, operator, value);
+    }
+}
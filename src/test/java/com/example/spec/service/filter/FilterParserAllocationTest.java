@@ -0,0 +1,68 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.entity.Person;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares bytes allocated by the tree based and the streaming compilation of a filter with a
+ * large {@code in} list.
+ */
+@Slf4j
+@SpringBootTest
+class FilterParserAllocationTest {
+
+    private static final int IDS = 50_000;
+
+    private static final int ROUNDS = 20;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private FilterCompiler filterCompiler;
+
+    @Test
+    void streamingAllocatesLessThanTree() throws IOException {
+        byte[] json = ("{\"AND\": [{\"age\": {\"gt\": 1}}, {\"id\": {\"in\": ["
+                + LongStream.range(0, IDS).mapToObj(Long::toString).collect(Collectors.joining(","))
+                + "]}}]}").getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(filterCompiler.compile(Person.class, mapper.readTree(json)),
+                filterCompiler.compile(Person.class, json));
+
+        long tree = measure(() -> filterCompiler.compile(Person.class, mapper.readTree(json)));
+        long streaming = measure(() -> filterCompiler.compile(Person.class, json));
+
+        log.info("Allocated per compilation of {} ids: tree {} bytes, streaming {} bytes", IDS, tree, streaming);
+        assertTrue(streaming < tree);
+    }
+
+    private static long measure(IOAction action) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < ROUNDS; i++) {
+            action.run();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            action.run();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / ROUNDS;
+    }
+
+    @FunctionalInterface
+    private interface IOAction {
+        void run() throws IOException;
+    }
+}
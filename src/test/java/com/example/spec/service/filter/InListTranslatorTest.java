@@ -0,0 +1,72 @@
+package com.example.spec.service.filter;
+
+import com.example.spec.service.entity.Person;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs every in-list strategy against H2 and logs its latency for a large id list.
+ */
+@Slf4j
+@SpringBootTest
+@Sql("/data.sql")
+@Transactional
+class InListTranslatorTest {
+
+    private static final int IDS = 50_000;
+
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private InListTranslator inListTranslator;
+
+    @Test
+    void strategiesMatchTheSameRows() {
+        List<Long> ids = LongStream.rangeClosed(3, IDS).boxed().toList();
+        InListTranslator padded = new InListTranslator(IDS, true, false);
+        InListTranslator chunked = new InListTranslator(1024, true, false);
+
+        for (InListTranslator translator : List.of(inListTranslator, padded, chunked)) {
+            assertEquals(6, count(translator, Operator.IN, ids));
+            assertEquals(2, count(translator, Operator.NOT_IN, ids));
+            assertEquals(2, count(translator, Operator.IN, List.of(1L, 2L, 42L)));
+        }
+
+        log.info("{} ids on H2: array {} us, padded {} us, chunked {} us", IDS,
+                measure(inListTranslator, ids), measure(padded, ids), measure(chunked, ids));
+    }
+
+    private long measure(InListTranslator translator, List<Long> ids) {
+        count(translator, Operator.IN, ids);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            count(translator, Operator.IN, ids);
+        }
+        return (System.nanoTime() - start) / ROUNDS / 1_000;
+    }
+
+    private long count(InListTranslator translator, Operator operator, List<Long> ids) {
+        CompiledFilter filter = new CompiledFilter("id in [?]", new FilterNode.Condition("id", operator, ids), translator);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Person> root = cq.from(Person.class);
+        cq.select(cb.count(root)).where(filter.toPredicate(root, cb));
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+}
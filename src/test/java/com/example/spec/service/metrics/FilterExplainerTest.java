@@ -0,0 +1,68 @@
+package com.example.spec.service.metrics;
+
+import com.example.spec.service.DynamicFilterService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:explain;DB_CLOSE_DELAY=-1",
+        "spec.filter.explain.enabled=true"})
+@Sql("/data.sql")
+@Transactional
+class FilterExplainerTest {
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Test
+    void explainsTheExecutedStatement() throws IOException {
+        FilterExplanation explanation = treeWalker.explain(treeWalker.convertJSONToNode("""
+                {"AND": [{"name": {"in": ["Olga", "Alice", "Bob"]}}, {"age": {"ge": 10}}]}
+                """));
+        log.info("Explanation: {}", explanation);
+        assertEquals("AND[age ge 10, name in [\"Alice\", \"Bob\", \"Olga\"]]", explanation.filter());
+        assertEquals("AND(name in [?],age ge ?)", explanation.shape());
+        assertEquals("H2", explanation.database());
+        assertTrue(explanation.sql().contains("from t1"), explanation.sql());
+        assertEquals(List.of("Olga", "Alice", "Bob", "Bob", 10), explanation.bindValues());
+        assertTrue(explanation.plan().contains("PUBLIC.T1"), explanation.plan());
+        assertFalse(explanation.analyzed());
+
+        FilterExplanation byId = treeWalker.explain(treeWalker.convertJSONToNode("""
+                {"id": {"eq": 4}}
+                """), true);
+        assertEquals(List.of(4L), byId.bindValues());
+        assertTrue(byId.plan().contains("PRIMARY_KEY"), byId.plan());
+        assertTrue(byId.plan().contains("scanCount"), byId.plan());
+        assertTrue(byId.analyzed());
+
+        String ids = LongStream.rangeClosed(1, 300).mapToObj(Long::toString).collect(Collectors.joining(","));
+        FilterExplanation array = treeWalker.explain(treeWalker.convertJSONToNode("""
+                {"id": {"in": [%s]}}
+                """.formatted(ids)), true);
+        assertEquals(1, array.bindValues().size());
+        assertEquals(300, ((List<?>) array.bindValues().get(0)).size());
+        assertTrue(array.plan().contains("scanCount"), array.plan());
+
+        FilterExplanation nothing = treeWalker.explain(treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"eq": 10}}, {"age": {"eq": 11}}]}
+                """));
+        assertEquals("false", nothing.filter());
+        assertNull(nothing.sql());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.spec.service.parallel;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.cache.CacheMode;
+import com.example.spec.service.config.FilterProperties;
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.stream.ExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Partitions run in transactions of their own and only see committed rows, so the data lives in
+ * a database of its own.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:parallel;DB_CLOSE_DELAY=-1",
+        "spec.filter.parallel.max-concurrency=4"})
+@Sql(scripts = {"/data.sql", "/large-data.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class ParallelFilterExecutorTest {
+
+    private static final String CHILDREN = """
+            {"AND": [{"age": {"lt": 10}}, {"enrolled": {"eq": true}}]}
+            """;
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Autowired
+    private ParallelFilterExecutor parallelExecutor;
+
+    @Autowired
+    private FilterProperties properties;
+
+    @AfterEach
+    void restoreProperties() {
+        properties.getParallel().setBoundaries(PartitionBoundaries.MIN_MAX);
+        properties.getParallel().setTargetPartitionLatency(Duration.ofMillis(250));
+    }
+
+    @Test
+    void returnsTheRowsOfTheSequentialQuery() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode(CHILDREN);
+        List<Long> expected = ids(treeWalker.getAllPersons(node, CacheMode.BYPASS)).stream().sorted().toList();
+
+        assertEquals(expected, ids(treeWalker.getAllPersonsParallel(node, true)));
+        assertEquals(expected, ids(treeWalker.getAllPersonsParallel(node, false)).stream().sorted().toList());
+
+        properties.getParallel().setBoundaries(PartitionBoundaries.SAMPLED);
+        assertEquals(expected, ids(treeWalker.getAllPersonsParallel(node, true)));
+    }
+
+    @Test
+    void exportsInIdOrder() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode(CHILDREN);
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        long rows = treeWalker.exportPersonsParallel(node, ExportFormat.CSV, csv, true);
+
+        List<Long> exported = csv.toString(StandardCharsets.UTF_8).lines().skip(1)
+                .map(line -> Long.valueOf(line.substring(0, line.indexOf(',')))).toList();
+        assertEquals(treeWalker.countPersons(node), rows);
+        assertEquals(exported.stream().sorted().toList(), exported);
+        assertEquals(rows, exported.size());
+    }
+
+    @Test
+    void adaptsThePartitionsToTheirLatency() throws IOException {
+        JsonNode node = treeWalker.convertJSONToNode(CHILDREN);
+        properties.getParallel().setTargetPartitionLatency(Duration.ofNanos(1));
+        treeWalker.getAllPersonsParallel(node, false);
+        int split = parallelExecutor.partitions(Person.class);
+        treeWalker.getAllPersonsParallel(node, false);
+
+        assertEquals(Math.min(64, split * 2), parallelExecutor.partitions(Person.class));
+
+        properties.getParallel().setTargetPartitionLatency(Duration.ofHours(1));
+        treeWalker.getAllPersonsParallel(node, false);
+
+        assertEquals(split, parallelExecutor.partitions(Person.class));
+    }
+
+    private static List<Long> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).toList();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.spec.service.readonly;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.cache.CacheMode;
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.repository.PersonRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads committed rows in transactions of its own, so the primary lives in a database of its own;
+ * a second in-memory database stands in for the read replica and holds one extra row.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:readonly;DB_CLOSE_DELAY=-1",
+        "spec.filter.read-mode=STATELESS",
+        "spec.filter.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "spec.filter.replica.username=sa",
+        "spec.filter.replica.password=sa"})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class ReadOnlyFilterExecutorTest {
+
+    private static final String ADULTS = """
+            {"age": {"ge": 10}}
+            """;
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Autowired
+    private ReadOnlyFilterExecutor readOnlyExecutor;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeAll
+    static void createReplica() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", "sa");
+             Statement statement = connection.createStatement()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("data.sql"));
+            statement.execute("INSERT INTO public.t1 (id, name, age) VALUES (100, 'Replica', 50)");
+        }
+    }
+
+    @Test
+    void statelessQueriesReadTheReplica() throws IOException {
+        List<Person> persons = treeWalker.getAllPersons(treeWalker.convertJSONToNode(ADULTS), CacheMode.BYPASS);
+
+        assertEquals(List.of(1L, 2L, 4L, 8L, 100L), persons.stream().map(Person::getId).sorted().toList());
+        assertEquals(5, treeWalker.countPersons(treeWalker.convertJSONToNode(ADULTS)));
+        assertTrue(treeWalker.existsPersons(treeWalker.convertJSONToNode("""
+                {"name": {"eq": "Replica"}}
+                """)));
+        assertFalse(entityManager.contains(persons.get(0)));
+    }
+
+    @Test
+    void readOnlyQueriesLoadReadOnlyEntities() {
+        assertTrue(readOnlyExecutor.readOnly(() -> {
+            Person alice = personRepository.findById(1L).orElseThrow();
+            return entityManager.unwrap(Session.class).isReadOnly(alice);
+        }));
+    }
+
+    @Test
+    @Transactional
+    void readOnlyQueriesInReadWriteTransactionsLoadManagedEntities() throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        Person olga = personRepository.findById(3L).orElseThrow();
+        olga.setName("Olga K.");
+        JsonNode renamed = treeWalker.convertJSONToNode("""
+                {"name": {"eq": "Olga K."}}
+                """);
+
+        List<Person> persons = readOnlyExecutor.readOnly(() -> personRepository.findAll(treeWalker.parseFilters(renamed)));
+
+        assertEquals(List.of(3L), persons.stream().map(Person::getId).toList());
+        Person alice = readOnlyExecutor.readOnly(() -> personRepository.findById(1L).orElseThrow());
+        assertFalse(session.isReadOnly(alice));
+        assertFalse(session.isDefaultReadOnly());
+        assertEquals(FlushMode.AUTO, session.getHibernateFlushMode());
+
+        alice.setName("Alice K.");
+        entityManager.flush();
+        assertEquals("Alice K.", entityManager.createNativeQuery("SELECT name FROM public.t1 WHERE id = 1").getSingleResult());
+    }
+
+    @Test
+    @Transactional
+    void statelessQueriesInReadWriteTransactionsSeeTheirChanges() throws IOException {
+        Person ivan = new Person();
+        ivan.setId(9L);
+        ivan.setName("Ivan");
+        ivan.setAge(40);
+        personRepository.save(ivan);
+        personRepository.findById(2L).orElseThrow().setAge(3);
+        JsonNode adults = treeWalker.convertJSONToNode(ADULTS);
+
+        List<Person> persons = treeWalker.getAllPersons(adults, CacheMode.BYPASS);
+
+        assertEquals(List.of(1L, 4L, 8L, 9L), persons.stream().map(Person::getId).sorted().toList());
+        assertTrue(entityManager.contains(persons.get(0)));
+        assertEquals(4, treeWalker.countPersons(adults));
+        assertTrue(treeWalker.existsPersons(treeWalker.convertJSONToNode("""
+                {"name": {"eq": "Ivan"}}
+                """)));
+    }
+
+    @Test
+    void reportsTheSnapshotsSavedByTheReadOnlyModes() throws IOException {
+        for (ReadMode mode : List.of(ReadMode.READ_ONLY, ReadMode.STATELESS)) {
+            ReadModeReport report = treeWalker.compareReadModes(treeWalker.convertJSONToNode(ADULTS), mode);
+
+            assertEquals(4, report.rows());
+            assertEquals(4, report.managed().trackedEntities());
+            assertEquals(4, report.managed().snapshots());
+            assertEquals(0, report.readOnly().snapshots());
+            assertEquals(mode == ReadMode.READ_ONLY ? 4 : 0, report.readOnly().trackedEntities());
+            assertTrue(report.managed().time().toNanos() > 0);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.spec.service.subscription;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.entity.Person;
+import com.example.spec.service.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deltas are only published when changes commit, so the test runs without a test transaction on
+ * a database of its own.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:subscriptions;DB_CLOSE_DELAY=-1")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class FilterSubscriptionTest {
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private FilterSubscriptionRegistry registry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void deliversTheSnapshotThenCommittedDeltas() throws IOException {
+        Recorder enrolledAdults = new Recorder();
+        Recorder carol = new Recorder();
+        try (FilterSubscription subscription = treeWalker.subscribePersons(treeWalker.convertJSONToNode("""
+                {"AND": [{"age": {"ge": 10}}, {"enrolled": {"eq": true}}]}
+                """), enrolledAdults);
+             FilterSubscription named = treeWalker.subscribePersons(treeWalker.convertJSONToNode("""
+                     {"name": {"in": ["Carol", "Caroline"]}}
+                     """), carol)) {
+            assertEquals(List.of(1L, 4L), enrolledAdults.snapshot.stream().sorted().toList());
+            assertEquals(2, subscription.matches());
+            assertEquals(List.of(3L), carol.snapshot);
+
+            save(2L, person -> person.setEnrolled(true));
+            save(1L, person -> person.setName("Alice B."));
+            save(4L, person -> person.setEnrolled(false));
+            Person added = new Person();
+            added.setId(9L);
+            added.setName("Ivan");
+            added.setAge(30);
+            added.setEnrolled(true);
+            personRepository.save(added);
+            personRepository.deleteById(9L);
+            save(3L, person -> person.setName("Caroline"));
+
+            assertEquals(List.of("ENTER 2", "UPDATE 1", "LEAVE 4", "ENTER 9", "LEAVE 9"), enrolledAdults.deltas);
+            assertEquals("Alice B.", enrolledAdults.entities.get(1).getName());
+            assertEquals(List.of("UPDATE 3"), carol.deltas);
+            assertEquals(2, subscription.matches());
+        }
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void dropsRolledBackChangesAndStopsWhenCancelled() throws IOException {
+        Recorder children = new Recorder();
+        FilterSubscription subscription = treeWalker.subscribePersons(treeWalker.convertJSONToNode("""
+                {"age": {"lt": 8}}
+                """), children);
+        assertEquals(List.of(3L, 7L), children.snapshot.stream().sorted().toList());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Person oleg = personRepository.findById(5L).orElseThrow();
+            oleg.setAge(6);
+            personRepository.saveAndFlush(oleg);
+            status.setRollbackOnly();
+        });
+        assertTrue(children.deltas.isEmpty());
+
+        save(7L, person -> person.setAge(8));
+        assertEquals(List.of("LEAVE 7"), children.deltas);
+
+        subscription.cancel();
+        assertFalse(subscription.isActive());
+        save(7L, person -> person.setAge(7));
+        assertEquals(List.of("LEAVE 7"), children.deltas);
+    }
+
+    @Test
+    void deliversTheFlushedStateOutsideTheRegistryLock() throws IOException {
+        List<Integer> subscriptions = new ArrayList<>();
+        Recorder george = new Recorder() {
+            @Override
+            public void onDelta(FilterDelta<Person> delta) {
+                super.onDelta(delta);
+                subscriptions.add(CompletableFuture.supplyAsync(registry::size).orTimeout(5, TimeUnit.SECONDS).join());
+            }
+        };
+        try (FilterSubscription subscription = treeWalker.subscribePersons(treeWalker.convertJSONToNode("""
+                {"AND": [{"id": {"eq": 6}}, {"score": {"gt": 31}}]}
+                """), george)) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Person person = personRepository.findById(6L).orElseThrow();
+                person.setScore(new BigDecimal("31.5"));
+                personRepository.saveAndFlush(person);
+                entityManager.detach(person);
+                person.setName("Not saved");
+            });
+
+            assertEquals(List.of("ENTER 6"), george.deltas);
+            assertEquals("George", george.entities.get(0).getName());
+            assertEquals(List.of(1), subscriptions);
+            assertTrue(subscription.isActive());
+        }
+    }
+
+    private void save(Long id, Consumer<Person> change) {
+        Person person = personRepository.findById(id).orElseThrow();
+        change.accept(person);
+        personRepository.save(person);
+    }
+
+    private static class Recorder implements FilterSubscriber<Person> {
+
+        private final List<Long> snapshot = new ArrayList<>();
+
+        private final List<String> deltas = new ArrayList<>();
+
+        private final List<Person> entities = new ArrayList<>();
+
+        @Override
+        public void onSnapshot(List<Person> matches) {
+            matches.forEach(person -> snapshot.add(person.getId()));
+        }
+
+        @Override
+        public void onDelta(FilterDelta<Person> delta) {
+            deltas.add(delta.type() + " " + delta.id());
+            entities.add(delta.entity());
+        }
+    }
+}
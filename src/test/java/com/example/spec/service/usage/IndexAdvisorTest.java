@@ -0,0 +1,90 @@
+package com.example.spec.service.usage;
+
+import com.example.spec.service.DynamicFilterService;
+import com.example.spec.service.cache.CacheMode;
+import com.example.spec.service.filter.Operator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Creates indexes, so it runs against a database of its own.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:advisor;DB_CLOSE_DELAY=-1")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class IndexAdvisorTest {
+
+    private static final String QUERY = "SELECT * FROM t1 WHERE age = 10 AND name IN ('Alice', 'Bob')";
+
+    @Autowired
+    private DynamicFilterService treeWalker;
+
+    @Autowired
+    private FilterUsageCollector collector;
+
+    @Autowired
+    private IndexAdvisor advisor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void advisesIndexesForTheObservedFiltersAndImprovesThePlan() throws IOException {
+        collector.reset();
+        run(5, """
+                {"AND": [{"age": {"eq": 10}}, {"name": {"in": ["Alice", "Bob"]}}]}
+                """);
+        run(2, """
+                {"OR": [{"score": {"gt": 40}}, {"enrolled": {"eq": true}}]}
+                """);
+        run(3, """
+                {"id": {"eq": 1}}
+                """);
+        run(3, """
+                {"name": {"!eq": "Olga"}}
+                """);
+
+        FilterUsage usage = treeWalker.filterUsage();
+        FilterUsage.PredicateUsage age = usage.predicates().stream().filter(predicate -> predicate.field().equals("age")).findFirst().orElseThrow();
+        assertEquals(Operator.EQ, age.operator());
+        assertEquals(5, age.queries());
+        assertTrue(age.maxTime().toNanos() > 0);
+        assertEquals(new FilterUsage.FieldSetUsage(List.of("age", "name"), List.of(), 5, usage.fieldSets().get(0).totalTime(),
+                usage.fieldSets().get(0).maxTime()), usage.fieldSets().get(0));
+
+        List<IndexRecommendation> recommendations = treeWalker.adviseIndexes();
+        IndexRecommendation composite = recommendations.get(0);
+        assertEquals(List.of("age", "name"), composite.fields());
+        assertEquals("CREATE INDEX t1_age_name_idx ON t1 (age, name)", composite.ddl());
+        assertEquals(10, composite.queries());
+        List<List<String>> advised = recommendations.stream().map(IndexRecommendation::fields).toList();
+        assertTrue(advised.containsAll(List.of(List.of("name"), List.of("score"), List.of("enrolled"))), advised.toString());
+        assertFalse(advised.contains(List.of("id")));
+        assertFalse(advised.contains(List.of("age")));
+
+        assertTrue(explain().contains("tableScan"), explain());
+        advisor.apply(composite);
+        assertTrue(explain().contains("T1_AGE_NAME_IDX"), explain());
+
+        assertFalse(treeWalker.adviseIndexes().stream().anyMatch(recommendation -> recommendation.fields().get(0).equals("age")));
+    }
+
+    private void run(int times, String json) throws IOException {
+        for (int i = 0; i < times; i++) {
+            treeWalker.getAllPersons(treeWalker.convertJSONToNode(json), CacheMode.BYPASS);
+        }
+    }
+
+    private String explain() {
+        return jdbcTemplate.queryForObject("EXPLAIN " + QUERY, String.class);
+    }
+}
@@ -0,0 +1,4 @@
+INSERT INTO public.t1
+(id, name, age, score, date, enrolled)
+SELECT x, CONCAT('name-', MOD(x, 1000)), MOD(x, 100), MOD(x, 10000) / 100.0, DATEADD('MINUTE', x, TIMESTAMP '2024-01-01 00:00:00'), MOD(x, 3) = 0
+FROM SYSTEM_RANGE(100, 300099);